@@ -0,0 +1,61 @@
+package com.example.demo.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.example.demo.entities.Appointment;
+import com.example.demo.entities.Doctor;
+import com.example.demo.entities.Patient;
+import com.example.demo.entities.Room;
+import com.example.demo.repositories.AppointmentRepository;
+
+/**
+ * Seeded benchmark data: {@code count} non-overlapping appointments spread
+ * round-robin over {@code rooms} rooms. Each room has one doctor, so doctor
+ * timelines stay free of overlaps too, and every appointment has its own
+ * patient.
+ */
+final class Appointments {
+
+    static final LocalDateTime FIRST_DAY = LocalDateTime.of(2023, 1, 2, 8, 0);
+
+    private Appointments() {
+    }
+
+    static List<Appointment> generate(int count, int rooms, long seed) {
+        Random random = new Random(seed);
+        LocalDateTime[] roomFreeAt = new LocalDateTime[rooms];
+        List<Appointment> appointments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int room = i % rooms;
+            LocalDateTime startsAt = (roomFreeAt[room] == null ? FIRST_DAY : roomFreeAt[room])
+                    .plusMinutes(15L * random.nextInt(3));
+            LocalDateTime finishesAt = startsAt.plusMinutes(15L * (1 + random.nextInt(4)));
+            roomFreeAt[room] = finishesAt;
+            appointments.add(appointment(i + 1, room, startsAt, finishesAt));
+        }
+        return appointments;
+    }
+
+    static Appointment appointment(long patientId, int room, LocalDateTime startsAt, LocalDateTime finishesAt) {
+        Patient patient = new Patient("Juana", "Sosa", 53, "jsosa@xmail.com");
+        patient.setId(patientId);
+        Doctor doctor = new Doctor("Marcos", "Corporan", 28, "Mcorporan@hospital.com");
+        doctor.setId(room + 1);
+        return new Appointment(patient, doctor, new Room("Room-" + room), startsAt, finishesAt);
+    }
+
+    /**
+     * A repository that has nothing stored, so the index only ever holds
+     * what the benchmark adds to it.
+     */
+    static AppointmentRepository emptyRepository() {
+        return (AppointmentRepository) Proxy.newProxyInstance(AppointmentRepository.class.getClassLoader(),
+                new Class<?>[] { AppointmentRepository.class },
+                (proxy, method, args) -> List.class.equals(method.getReturnType()) ? Collections.emptyList() : null);
+    }
+}
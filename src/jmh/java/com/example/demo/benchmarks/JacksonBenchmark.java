@@ -0,0 +1,90 @@
+package com.example.demo.benchmarks;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.demo.JacksonConfiguration;
+import com.example.demo.entities.Appointment;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * JSON cost of appointment payloads of {@code appointments} items, and of a
+ * single LocalDateTime, through an ObjectMapper customized exactly as
+ * {@link JacksonConfiguration} customizes the application's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JacksonBenchmark {
+
+    @Param({ "1", "100", "1000" })
+    public int appointments;
+
+    private ObjectWriter listWriter;
+    private ObjectReader listReader;
+    private ObjectWriter dateTimeWriter;
+    private ObjectReader dateTimeReader;
+    private List<Appointment> payload;
+    private byte[] json;
+    private LocalDateTime dateTime;
+    private byte[] dateTimeJson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        new JacksonConfiguration().jackson2ObjectMapperBuilderCustomizer().customize(builder);
+        ObjectMapper mapper = builder.build();
+
+        listWriter = mapper.writerFor(new TypeReference<List<Appointment>>() { });
+        listReader = mapper.readerFor(new TypeReference<List<Appointment>>() { });
+        dateTimeWriter = mapper.writerFor(LocalDateTime.class);
+        dateTimeReader = mapper.readerFor(LocalDateTime.class);
+
+        payload = Appointments.generate(appointments, 10, 42);
+        json = listWriter.writeValueAsBytes(payload);
+        dateTime = payload.get(0).getStartsAt();
+        dateTimeJson = dateTimeWriter.writeValueAsBytes(dateTime);
+    }
+
+    @Benchmark
+    public byte[] serializeAppointments() throws IOException {
+        return listWriter.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public List<Appointment> deserializeAppointments() throws IOException {
+        return listReader.readValue(json);
+    }
+
+    @Benchmark
+    public byte[] serializeLocalDateTime() throws IOException {
+        return dateTimeWriter.writeValueAsBytes(dateTime);
+    }
+
+    @Benchmark
+    public LocalDateTime deserializeLocalDateTime() throws IOException {
+        return dateTimeReader.readValue(dateTimeJson);
+    }
+}
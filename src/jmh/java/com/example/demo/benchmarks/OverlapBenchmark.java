@@ -0,0 +1,106 @@
+package com.example.demo.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo.entities.Appointment;
+import com.example.demo.scheduling.AppointmentIndex;
+import com.example.demo.scheduling.EpochMinutes;
+
+/**
+ * Cost of one booking check against {@code appointments} existing bookings
+ * over {@code rooms} rooms: the legacy linear scan with
+ * {@link Appointment#overlaps}, the index the controller consults, and the
+ * bare epoch-minute predicate. Probes are random 30-minute slots over the
+ * booked horizon, so some collide and some do not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class OverlapBenchmark {
+
+    private static final int PROBES = 1 << 12;
+
+    @Param({ "1000", "100000", "1000000" })
+    public int appointments;
+
+    @Param({ "10", "1000" })
+    public int rooms;
+
+    private List<Appointment> booked;
+    private AppointmentIndex index;
+    private Appointment[] probes;
+    private long[] probeStarts;
+    private long[] probeEnds;
+    private long bookedStart;
+    private long bookedEnd;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        booked = Appointments.generate(appointments, rooms, 42);
+        index = new AppointmentIndex(Appointments.emptyRepository());
+        booked.forEach(index::add);
+
+        Appointment middle = booked.get(booked.size() / 2);
+        bookedStart = EpochMinutes.floor(middle.getStartsAt());
+        bookedEnd = EpochMinutes.ceil(middle.getFinishesAt());
+
+        long horizon = EpochMinutes.floor(booked.get(booked.size() - 1).getFinishesAt())
+                - EpochMinutes.floor(Appointments.FIRST_DAY);
+        Random random = new Random(7);
+        probes = new Appointment[PROBES];
+        probeStarts = new long[PROBES];
+        probeEnds = new long[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            LocalDateTime startsAt = Appointments.FIRST_DAY.plusMinutes(5L * random.nextInt((int) Math.max(1, horizon / 5)));
+            probes[i] = Appointments.appointment(appointments + i + 1, random.nextInt(rooms), startsAt, startsAt.plusMinutes(30));
+            probeStarts[i] = EpochMinutes.floor(startsAt);
+            probeEnds[i] = probeStarts[i] + 30;
+        }
+    }
+
+    private int nextProbe() {
+        return next++ & (PROBES - 1);
+    }
+
+    @Benchmark
+    public boolean appointmentOverlapsScan() {
+        Appointment probe = probes[nextProbe()];
+        for (Appointment appointment : booked) {
+            if (appointment.overlaps(probe)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean indexConflictOf() {
+        return index.hasOverlap(probes[nextProbe()]);
+    }
+
+    @Benchmark
+    public boolean epochMinutesOverlaps() {
+        int probe = nextProbe();
+        return EpochMinutes.overlaps(bookedStart, bookedEnd, probeStarts[probe], probeEnds[probe]);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.cache;
+
+/**
+ * Counters of one second-level cache region since startup.
+ */
+public class CacheRegionStats {
+
+    private final String region;
+    private final long hits;
+    private final long misses;
+    private final long puts;
+    private final long evictions;
+
+    public CacheRegionStats(String region, long hits, long misses, long puts, long evictions) {
+        this.region = region;
+        this.hits = hits;
+        this.misses = misses;
+        this.puts = puts;
+        this.evictions = evictions;
+    }
+
+    public String getRegion() {
+        return this.region;
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public long getMisses() {
+        return this.misses;
+    }
+
+    public long getPuts() {
+        return this.puts;
+    }
+
+    public long getEvictions() {
+        return this.evictions;
+    }
+}
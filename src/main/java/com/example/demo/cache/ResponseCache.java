@@ -0,0 +1,207 @@
+package com.example.demo.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.metrics.ServerTiming;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Already encoded JSON bodies of read-mostly GET endpoints, kept per endpoint
+ * and query together with a gzip copy. A hit is answered with the stored
+ * bytes as they are, without a query or a serializer in between.
+ *
+ * Controllers invalidate their endpoint on every create and delete. Bodies
+ * also expire after api.response-cache.ttl-seconds, which bounds how stale a
+ * change made elsewhere (another instance, or a booking that creates a
+ * doctor or room on the fly) can look. An expired body is replaced by the
+ * next load, and each endpoint keeps at most api.response-cache.max-entries
+ * queries, evicting the least recently served one.
+ */
+@Component
+public class ResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    @Value("${api.response-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${api.response-cache.max-entries:256}")
+    private int maxEntries;
+
+    @Autowired
+    public ResponseCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * The cached body for this endpoint and query, or else whatever the loader
+     * returns. Only 200 responses are encoded and kept; anything else is
+     * passed through untouched.
+     */
+    public ResponseEntity<?> serve(String endpoint, String query, String acceptEncoding,
+            Supplier<ResponseEntity<?>> loader) {
+        Endpoint cached = endpoints.computeIfAbsent(endpoint, name -> new Endpoint(maxEntries));
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        Body body = cached.get(query);
+        if (body != null) {
+            return body.toResponse(gzip);
+        }
+
+        long generation = cached.generation.get();
+        ResponseEntity<?> fresh = loader.get();
+        if (fresh.getStatusCode() != HttpStatus.OK || fresh.getBody() == null) {
+            return fresh;
+        }
+
+        body = encode(fresh.getBody());
+        // Not kept if invalidated while loading: the body may predate the change.
+        cached.put(query, body, generation);
+        return body.toResponse(gzip);
+    }
+
+    public void invalidate(String endpoint) {
+        Endpoint cached = endpoints.get(endpoint);
+        if (cached != null) {
+            cached.clear();
+        }
+    }
+
+    public void clear() {
+        endpoints.values().forEach(Endpoint::clear);
+    }
+
+    /**
+     * Whether the Accept-Encoding header allows gzip, by its own q-value or
+     * else by that of "*". A q-value of 0 means "not acceptable".
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double gzip = -1;
+        double any = -1;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] params = coding.split(";");
+            String name = params[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim().toLowerCase(Locale.ROOT);
+                if (param.startsWith("q=")) {
+                    q = qValue(param.substring(2).trim());
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzip = Math.max(gzip, q);
+            } else if (name.equals("*")) {
+                any = Math.max(any, q);
+            }
+        }
+        return gzip >= 0 ? gzip > 0 : any > 0;
+    }
+
+    private static double qValue(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    private Body encode(Object value) {
+        try {
+            long start = System.nanoTime();
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            ServerTiming.record(ServerTiming.Phase.SERIALIZE, System.nanoTime() - start);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(json);
+            }
+            long expiresAt = ttlSeconds > 0 ? System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds) : Long.MAX_VALUE;
+            return new Body(json, compressed.toByteArray(), expiresAt);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Bodies in access order, so the eldest entry is the least recently served.
+    private static final class Endpoint {
+        private final AtomicLong generation = new AtomicLong();
+        private final Map<String, Body> bodies;
+
+        Endpoint(int maxEntries) {
+            this.bodies = new LinkedHashMap<String, Body>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Body> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        synchronized Body get(String query) {
+            Body body = bodies.get(query);
+            if (body != null && body.expired()) {
+                bodies.remove(query);
+                return null;
+            }
+            return body;
+        }
+
+        synchronized void put(String query, Body body, long loadedAt) {
+            if (generation.get() == loadedAt) {
+                bodies.put(query, body);
+            }
+        }
+
+        synchronized void clear() {
+            generation.incrementAndGet();
+            bodies.clear();
+        }
+    }
+
+    private static final class Body {
+        private final byte[] json;
+        private final byte[] gzip;
+        private final long expiresAt;
+
+        Body(byte[] json, byte[] gzip, long expiresAt) {
+            this.json = json;
+            this.gzip = gzip;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean expired() {
+            return expiresAt != Long.MAX_VALUE && System.nanoTime() - expiresAt > 0;
+        }
+
+        ResponseEntity<byte[]> toResponse(boolean compressed) {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (compressed) {
+                return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").contentLength(gzip.length).body(gzip);
+            }
+            return response.contentLength(json.length).body(json);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.demo.cache;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.demo.entities.Doctor;
+import com.example.demo.entities.Patient;
+import com.example.demo.entities.Room;
+
+/**
+ * Hibernate second-level cache for rooms, doctors and patients, plus the
+ * query cache, held in an in-process Ehcache through JCache.
+ *
+ * Every region is created here with a fixed number of heap entries, and
+ * Hibernate refuses to start if it asks for any other region, so the cache
+ * can never grow without bound. Least recently used entries are evicted
+ * first; entity entries also expire after a while as a safety net against
+ * writes made behind Hibernate's back.
+ *
+ * No collection is cached; one marked with @Cache needs its region, named
+ * after the owning entity and the role, added here too. The @DataJpaTest
+ * slices don't scan this class, so they import it to start against the same
+ * regions instead of having Hibernate create them on the fly.
+ */
+@Configuration
+public class SecondLevelCacheConfiguration {
+
+    public static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    public static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    public static final List<String> ENTITY_REGIONS = Arrays.asList(
+            Room.class.getName(), Doctor.class.getName(), Patient.class.getName());
+
+    @Value("${cache.entity.heap-entries:10000}")
+    private long entityHeapEntries;
+
+    @Value("${cache.entity.ttl-seconds:3600}")
+    private long entityTtlSeconds;
+
+    @Value("${cache.query.heap-entries:1000}")
+    private long queryHeapEntries;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager() {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName());
+        // A manager of its own per application context, so test contexts
+        // sharing a JVM never see each other's caches. Passing the configuration
+        // keeps Ehcache from reading the URI as the location of an XML file.
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("urn:hospital:second-level-cache:" + UUID.randomUUID()),
+                new DefaultConfiguration(getClass().getClassLoader()));
+
+        for (String region : ENTITY_REGIONS) {
+            createRegion(cacheManager, region, CacheConfigurationBuilder
+                    .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(entityHeapEntries))
+                    .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(entityTtlSeconds))));
+        }
+        createRegion(cacheManager, QUERY_RESULTS_REGION, CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(queryHeapEntries)));
+        // One entry per table; these must outlive every cached query result.
+        createRegion(cacheManager, UPDATE_TIMESTAMPS_REGION, CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(1000)));
+        return cacheManager;
+    }
+
+    private static void createRegion(CacheManager cacheManager, String region,
+            CacheConfigurationBuilder<Object, Object> configuration) {
+        cacheManager.createCache(region, Eh107Configuration.fromEhcacheCacheConfiguration(configuration));
+        cacheManager.enableStatistics(region, true);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, "true");
+            properties.put(AvailableSettings.USE_QUERY_CACHE, "true");
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            // Per-region hit and miss counts for the stats endpoint.
+            properties.put(AvailableSettings.GENERATE_STATISTICS, "true");
+        };
+    }
+}
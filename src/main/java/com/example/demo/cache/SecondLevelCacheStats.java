@@ -0,0 +1,72 @@
+package com.example.demo.cache;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.cache.CacheManager;
+import javax.cache.management.CacheStatisticsMXBean;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hit, miss and put counts come from Hibernate's statistics, which see every
+ * cache lookup; evictions only happen inside Ehcache and are read from the
+ * JCache statistics bean of each region.
+ */
+@Component
+public class SecondLevelCacheStats {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final CacheManager cacheManager;
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    @Autowired
+    public SecondLevelCacheStats(EntityManagerFactory entityManagerFactory, CacheManager secondLevelCacheManager) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.cacheManager = secondLevelCacheManager;
+    }
+
+    public List<CacheRegionStats> regions() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        List<CacheRegionStats> regions = new ArrayList<>();
+        for (String region : cacheManager.getCacheNames()) {
+            CacheRegionStatistics counts = statistics.getCacheRegionStatistics(region);
+            regions.add(new CacheRegionStats(region,
+                    counts == null ? 0 : counts.getHitCount(),
+                    counts == null ? 0 : counts.getMissCount(),
+                    counts == null ? 0 : counts.getPutCount(),
+                    evictions(region)));
+        }
+        return regions;
+    }
+
+    private long evictions(String region) {
+        try {
+            ObjectName name = new ObjectName("javax.cache:type=CacheStatistics"
+                    + ",CacheManager=" + sanitize(cacheManager.getURI().toString())
+                    + ",Cache=" + sanitize(region));
+            if (!mBeanServer.isRegistered(name)) {
+                return 0;
+            }
+            return JMX.newMXBeanProxy(mBeanServer, name, CacheStatisticsMXBean.class).getCacheEvictions();
+        } catch (MalformedObjectNameException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    // Same escaping Ehcache applies when it registers the bean.
+    private static String sanitize(String name) {
+        return name.replaceAll(",|:|=|\n", ".");
+    }
+}
@@ -1,11 +1,24 @@
 package com.example.demo.controllers;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -14,23 +27,70 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.demo.cache.ResponseCache;
 import com.example.demo.entities.Appointment;
-import com.example.demo.repositories.AppointmentRepository;
+import com.example.demo.entities.Doctor;
+import com.example.demo.entities.Patient;
+import com.example.demo.entities.Room;
+import com.example.demo.jfr.BookingEvent;
+import com.example.demo.paging.KeysetPage;
+import com.example.demo.paging.PageCursor;
+import com.example.demo.scheduling.AppointmentIndex;
+import com.example.demo.scheduling.AppointmentRequest;
+import com.example.demo.scheduling.BookingConflict;
+import com.example.demo.scheduling.BookingResult;
+import com.example.demo.scheduling.ScheduleLocks;
+import com.example.demo.scheduling.ScheduleResource;
+import com.example.demo.scheduling.SlotConflictException;
+import com.example.demo.scheduling.Timeline;
+import com.example.demo.services.AppointmentService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 @RestController
 @RequestMapping("/api")
 public class AppointmentController {
 
 	@Autowired
-	AppointmentRepository appointmentRepository;
+	AppointmentService appointmentService;
+
+	@Autowired
+	AppointmentIndex appointmentIndex;
+
+	@Autowired
+	ScheduleLocks scheduleLocks;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired
+	ResponseCache responseCache;
+
+	@Value("${api.page.default-size:100}")
+	int defaultPageSize;
+
+	@Value("${api.page.max-size:1000}")
+	int maxPageSize;
+
+	@Value("${booking.max-minutes:1440}")
+	long maxAppointmentMinutes;
 
 	@GetMapping("/appointments")
-	public ResponseEntity<List<Appointment>> getAllAppointments() {
+	public ResponseEntity<?> getAllAppointments(@RequestParam(required = false) Integer size,
+	                                            @RequestParam(required = false) String cursor) {
+		if (size != null || cursor != null) {
+			return getAppointmentPage(size, cursor);
+		}
+
 		List<Appointment> appointments = new ArrayList<>();
 
-		appointmentRepository.findAll().forEach(appointments::add);
+		appointmentService.findAll().forEach(appointments::add);
 
 		if (appointments.isEmpty()) {
 			return new ResponseEntity<>(HttpStatus.NO_CONTENT);
@@ -39,9 +99,58 @@ public class AppointmentController {
 		return new ResponseEntity<>(appointments, HttpStatus.OK);
 	}
 
+	private ResponseEntity<KeysetPage<Appointment>> getAppointmentPage(Integer size, String cursor) {
+		try {
+			int pageSize = KeysetPage.sizeOf(size, defaultPageSize, maxPageSize);
+
+			List<Appointment> rows;
+			if (cursor == null) {
+				rows = appointmentService.findFirstPage(pageSize + 1);
+			} else {
+				String[] key = PageCursor.decode(cursor, 2);
+				// An empty start means the page ended among the appointments without one.
+				rows = key[0].isEmpty()
+						? appointmentService.findUnscheduledPageAfter(Long.parseLong(key[1]), pageSize + 1)
+						: appointmentService.findPageAfter(LocalDateTime.parse(key[0]), Long.parseLong(key[1]), pageSize + 1);
+			}
+			return new ResponseEntity<>(KeysetPage.of(rows, pageSize, last -> PageCursor.encode(
+					last.getStartsAt() == null ? "" : last.getStartsAt().toString(), String.valueOf(last.getId()))),
+					HttpStatus.OK);
+		} catch (IllegalArgumentException | DateTimeParseException ex) {
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+	}
+
+	/**
+	 * Writes every appointment as one JSON array, a row at a time, straight
+	 * from a database cursor to the response. Neither the result set nor the
+	 * serialized body is ever held in memory as a whole.
+	 */
+	@GetMapping(value = "/appointments", params = "stream=true")
+	public ResponseEntity<StreamingResponseBody> streamAppointments() {
+		// Flushing after every element would turn each row into its own write.
+		ObjectWriter writer = objectMapper.writerFor(Appointment.class)
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+		StreamingResponseBody body = out -> {
+			try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+				generator.writeStartArray();
+				appointmentService.streamAll(appointment -> {
+					try {
+						writer.writeValue(generator, appointment);
+					} catch (IOException ex) {
+						throw new UncheckedIOException(ex);
+					}
+				});
+				generator.writeEndArray();
+			}
+		};
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+	}
+
 	@GetMapping("/appointments/{id}")
 	public ResponseEntity<Appointment> getAppointmentById(@PathVariable("id") long id) {
-		Optional<Appointment> appointment = appointmentRepository.findById(id);
+		Optional<Appointment> appointment = appointmentService.findById(id);
 
 		if (appointment.isPresent()) {
 			return new ResponseEntity<>(appointment.get(), HttpStatus.OK);
@@ -51,66 +160,287 @@ public class AppointmentController {
 	}
 
 	@PostMapping("/appointment")
-	public ResponseEntity<List<Appointment>> createAppointment(@RequestBody Appointment appointment) {
+	public ResponseEntity<BookingConflict> createAppointment(@RequestBody Appointment appointment) {
+	    BookingEvent event = BookingEvent.begin("POST /api/appointment");
+	    ResponseEntity<BookingConflict> response = createNestedAppointment(appointment);
+	    event.end(appointment.getRoom() == null ? null : appointment.getRoom().getRoomName(), response);
+	    return response;
+	}
+
+	private ResponseEntity<BookingConflict> createNestedAppointment(Appointment appointment) {
 	    try {
 	        if (invalidAppointment(appointment)) {
 	            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
 	        }
 
-	        Appointment newAppointment = createNewAppointment(appointment);
+	        return bookLocked(createNewAppointment(appointment), false);
+	    } catch (SlotConflictException ex) {
+	        return new ResponseEntity<>(slotConflict(ex, appointment), HttpStatus.NOT_ACCEPTABLE);
+	    } catch (Exception ex) {
+	        return new ResponseEntity<>( HttpStatus.INTERNAL_SERVER_ERROR);
+	    }
+	}
+
+	/**
+	 * Books by patientId, doctorId and roomName. They are bound as references
+	 * and never loaded, so a missing one only shows up as a foreign key
+	 * violation, reported as NOT_FOUND.
+	 */
+	@PostMapping("/appointments")
+	public ResponseEntity<BookingConflict> bookAppointment(@RequestBody AppointmentRequest request) {
+	    BookingEvent event = BookingEvent.begin("POST /api/appointments");
+	    ResponseEntity<BookingConflict> response = bookByReference(request);
+	    event.end(request.getRoomName(), response);
+	    return response;
+	}
+
+	private ResponseEntity<BookingConflict> bookByReference(AppointmentRequest request) {
+	    try {
+	        if (request.getDoctorId() == null ||
+	            request.getRoomName() == null ||
+	            request.getStartsAt() == null ||
+	            request.getFinishesAt() == null ||
+	            invalidPeriod(request.getStartsAt(), request.getFinishesAt())) {
+	            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+	        }
+
+	        return bookLocked(request.toAppointment(), true);
+	    } catch (SlotConflictException ex) {
+	        return new ResponseEntity<>(slotConflict(ex, request.toAppointment()), HttpStatus.NOT_ACCEPTABLE);
+	    } catch (DataIntegrityViolationException ex) {
+	        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+	    } catch (Exception ex) {
+	        return new ResponseEntity<>( HttpStatus.INTERNAL_SERVER_ERROR);
+	    }
+	}
+
+	private ResponseEntity<BookingConflict> bookLocked(Appointment newAppointment, boolean byReference) {
+	    // Check and save must not interleave with another booking of the same
+	    // room, doctor or patient.
+	    boolean newDoctor = AppointmentIndex.doctorId(newAppointment) == 0;
+	    ScheduleLocks.Held held = scheduleLocks.lock(newAppointment);
+	    try (held) {
+	        Optional<BookingConflict> conflict = appointmentService.book(newAppointment, byReference);
+	        if (conflict.isPresent()) {
+	            return new ResponseEntity<>(conflict.get(), HttpStatus.NOT_ACCEPTABLE);
+	        }
+	    }
+	    if (!byReference) {
+	        invalidateListings(newDoctor);
+	    }
+	    return new ResponseEntity<>(HttpStatus.OK);
+	}
+
+	@PostMapping("/appointments/batch")
+	public ResponseEntity<List<BookingResult>> createAppointments(@RequestBody List<Appointment> appointments) {
+	    try {
+	        BookingResult[] results = new BookingResult[appointments.size()];
+	        Appointment[] newAppointments = new Appointment[appointments.size()];
+	        List<Integer> candidates = new ArrayList<>();
 
-	        if (hasOverlap(newAppointment)) {
-	            return new ResponseEntity<>( HttpStatus.NOT_ACCEPTABLE);
+	        for (int i = 0; i < appointments.size(); i++) {
+	            if (invalidAppointment(appointments.get(i))) {
+	                results[i] = BookingResult.invalid(i);
+	            } else {
+	                newAppointments[i] = createNewAppointment(appointments.get(i));
+	                candidates.add(i);
+	            }
+	        }
+	        // The sweep works on batch-local room ids, numbered in name order, and
+	        // epoch minutes only, rounded out to slots like everything in the index.
+	        Map<String, Integer> batchRoomIds = new TreeMap<>();
+	        candidates.forEach(i -> batchRoomIds.put(newAppointments[i].getRoom().getRoomName(), 0));
+	        int nextRoomId = 0;
+	        for (Map.Entry<String, Integer> room : batchRoomIds.entrySet()) {
+	            room.setValue(nextRoomId++);
 	        }
+	        int[] roomIds = new int[appointments.size()];
+	        long[] startsAt = new long[appointments.size()];
+	        long[] finishesAt = new long[appointments.size()];
+	        for (int i : candidates) {
+	            roomIds[i] = batchRoomIds.get(newAppointments[i].getRoom().getRoomName());
+	            startsAt[i] = appointmentIndex.slotStart(newAppointments[i].getStartsAt());
+	            finishesAt[i] = appointmentIndex.slotEnd(newAppointments[i].getFinishesAt());
+	        }
+	        candidates.sort(Comparator.comparingInt((Integer i) -> roomIds[i]).thenComparingLong(i -> startsAt[i]));
 
-	        appointmentRepository.save(newAppointment);
-	        return new ResponseEntity<>(HttpStatus.OK);
+	        boolean newDoctor = candidates.stream().anyMatch(i -> AppointmentIndex.doctorId(newAppointments[i]) == 0);
+	        List<Appointment> lockedAppointments = new ArrayList<>();
+	        candidates.forEach(i -> lockedAppointments.add(newAppointments[i]));
+	        ScheduleLocks.Held held = scheduleLocks.lockAll(lockedAppointments);
+	        try (held) {
+	            List<Integer> accepted = sweepConflicts(newAppointments, roomIds, startsAt, finishesAt, candidates, results);
+	            bookAccepted(appointments, newAppointments, accepted, results);
+	        }
+	        invalidateListings(newDoctor);
+	        return new ResponseEntity<>(Arrays.asList(results), HttpStatus.OK);
 	    } catch (Exception ex) {
 	        return new ResponseEntity<>( HttpStatus.INTERNAL_SERVER_ERROR);
 	    }
 	}
 
+	/**
+	 * Walks the candidates in (room id, startsAt) order. Within a room only the
+	 * end of the last accepted appointment matters, doctors and patients get a
+	 * batch-local timeline, and everything else is checked against the index.
+	 */
+	private List<Integer> sweepConflicts(Appointment[] newAppointments, int[] roomIds, long[] startsAt, long[] finishesAt,
+	                                     List<Integer> candidates, BookingResult[] results) {
+	    List<Integer> accepted = new ArrayList<>();
+	    Map<Long, Timeline> doctors = new HashMap<>();
+	    Map<Long, Timeline> patients = new HashMap<>();
+	    int roomId = -1;
+	    long roomFreeAt = Long.MIN_VALUE;
+
+	    for (int i : candidates) {
+	        Appointment candidate = newAppointments[i];
+	        if (roomIds[i] != roomId) {
+	            roomId = roomIds[i];
+	            roomFreeAt = Long.MIN_VALUE;
+	        }
+
+	        long doctorId = AppointmentIndex.doctorId(candidate);
+	        long patientId = AppointmentIndex.patientId(candidate);
+	        BookingConflict conflict = null;
+	        if (startsAt[i] < roomFreeAt) {
+	            conflict = new BookingConflict(ScheduleResource.ROOM, candidate.getRoom().getRoomName());
+	        } else if (doctorId != 0 && overlapsInBatch(doctors, doctorId, startsAt[i], finishesAt[i])) {
+	            conflict = new BookingConflict(ScheduleResource.DOCTOR, String.valueOf(doctorId));
+	        } else if (patientId != 0 && overlapsInBatch(patients, patientId, startsAt[i], finishesAt[i])) {
+	            conflict = new BookingConflict(ScheduleResource.PATIENT, String.valueOf(patientId));
+	        } else {
+	            conflict = appointmentIndex.conflictOf(candidate).orElse(null);
+	        }
+
+	        if (conflict != null) {
+	            results[i] = BookingResult.conflict(i, conflict);
+	            continue;
+	        }
+	        accepted.add(i);
+	        roomFreeAt = finishesAt[i];
+	        if (doctorId != 0) {
+	            doctors.computeIfAbsent(doctorId, id -> new Timeline()).add(startsAt[i], finishesAt[i]);
+	        }
+	        if (patientId != 0) {
+	            patients.computeIfAbsent(patientId, id -> new Timeline()).add(startsAt[i], finishesAt[i]);
+	        }
+	    }
+	    return accepted;
+	}
+
+	private static boolean overlapsInBatch(Map<Long, Timeline> timelines, long id, long startsAt, long finishesAt) {
+	    Timeline timeline = timelines.get(id);
+	    return timeline != null && timeline.overlaps(startsAt, finishesAt);
+	}
+
+	private void bookAccepted(List<Appointment> appointments, Appointment[] newAppointments, List<Integer> accepted,
+	                          BookingResult[] results) {
+	    List<Appointment> batch = new ArrayList<>();
+	    accepted.forEach(i -> batch.add(newAppointments[i]));
+	    try {
+	        appointmentService.bookAll(batch);
+	        for (int i : accepted) {
+	            results[i] = BookingResult.accepted(i, newAppointments[i].getId());
+	        }
+	    } catch (SlotConflictException ex) {
+	        // Another instance took some of the slots meanwhile. The batch was
+	        // rolled back as a whole, so find out item by item which ones still fit.
+	        // The ids handed to new doctors and patients were rolled back with
+	        // it, so each retry starts again from the request payload.
+	        for (int i : accepted) {
+	            Appointment retry = createNewAppointment(appointments.get(i));
+	            try {
+	                appointmentService.bookAll(Collections.singletonList(retry));
+	                results[i] = BookingResult.accepted(i, retry.getId());
+	            } catch (SlotConflictException conflict) {
+	                results[i] = BookingResult.conflict(i, slotConflict(conflict, retry));
+	            }
+	        }
+	    }
+	}
+
+	/**
+	 * Nested payloads can bring along rooms and doctors that the repository
+	 * creates on the fly, which the cached room and doctor listings would miss.
+	 */
+	private void invalidateListings(boolean newDoctor) {
+	    responseCache.invalidate("rooms");
+	    if (newDoctor) {
+	        responseCache.invalidate("doctors");
+	    }
+	}
+
+	// The room, doctor or patient whose slot the database refused.
+	private static BookingConflict slotConflict(SlotConflictException ex, Appointment appointment) {
+	    switch (ex.getResource()) {
+	    case DOCTOR:
+	        return new BookingConflict(ScheduleResource.DOCTOR, String.valueOf(appointment.getDoctor().getId()));
+	    case PATIENT:
+	        return new BookingConflict(ScheduleResource.PATIENT, String.valueOf(appointment.getPatient().getId()));
+	    default:
+	        return new BookingConflict(ScheduleResource.ROOM, appointment.getRoom().getRoomName());
+	    }
+	}
+
 	private boolean invalidAppointment(Appointment appointment) {
-	    return appointment.getRoom() == null || 
+	    return appointment == null ||
+	           appointment.getRoom() == null ||
+	           appointment.getRoom().getRoomName() == null ||
 	           appointment.getDoctor() == null ||
 	           appointment.getStartsAt() == null ||
 	           appointment.getFinishesAt() == null ||
-	           appointment.getStartsAt().isEqual(appointment.getFinishesAt());
+	           invalidPeriod(appointment.getStartsAt(), appointment.getFinishesAt());
 	}
 
+	// Empty, reversed, or longer than booking.max-minutes, which also bounds
+	// the slot rows a single booking can claim.
+	private boolean invalidPeriod(LocalDateTime startsAt, LocalDateTime finishesAt) {
+	    return !startsAt.isBefore(finishesAt) ||
+	           startsAt.plusMinutes(maxAppointmentMinutes).isBefore(finishesAt);
+	}
+
+	/**
+	 * Copies the payload, including any room, doctor or patient the repository
+	 * may still have to insert, so booking never writes generated ids back into
+	 * the request.
+	 */
 	private Appointment createNewAppointment(Appointment appointment) {
-	    return new Appointment(appointment.getPatient(), 
-	                           appointment.getDoctor(), 
-	                           appointment.getRoom(),
+	    return new Appointment(copyOf(appointment.getPatient()),
+	                           copyOf(appointment.getDoctor()),
+	                           new Room(appointment.getRoom().getRoomName()),
 	                           appointment.getStartsAt(),
 	                           appointment.getFinishesAt());
 	}
 
-	private boolean hasOverlap(Appointment newAppointment) {
-	    List<Appointment> appointmentList = appointmentRepository.findAll();
-	    return appointmentList.stream()
-	                          .anyMatch(existingAppointment -> newAppointment.overlaps(existingAppointment));
+	private static Patient copyOf(Patient patient) {
+	    if (patient == null || patient.getId() != 0) {
+	        return patient;
+	    }
+	    return new Patient(patient.getFirstName(), patient.getLastName(), patient.getAge(), patient.getEmail());
+	}
+
+	private static Doctor copyOf(Doctor doctor) {
+	    if (doctor == null || doctor.getId() != 0) {
+	        return doctor;
+	    }
+	    return new Doctor(doctor.getFirstName(), doctor.getLastName(), doctor.getAge(), doctor.getEmail());
 	}
 
 
 	@DeleteMapping("/appointments/{id}")
 	public ResponseEntity<HttpStatus> deleteAppointment(@PathVariable("id") long id) {
 
-		Optional<Appointment> appointment = appointmentRepository.findById(id);
-
-		if (!appointment.isPresent()) {
+		if (!appointmentService.deleteById(id)) {
 			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
 		}
 
-		appointmentRepository.deleteById(id);
-
 		return new ResponseEntity<>(HttpStatus.OK);
 
 	}
 
 	@DeleteMapping("/appointments")
 	public ResponseEntity<HttpStatus> deleteAllAppointments() {
-		appointmentRepository.deleteAll();
+		appointmentService.deleteAll();
 		return new ResponseEntity<>(HttpStatus.OK);
 	}
 
@@ -0,0 +1,99 @@
+package com.example.demo.controllers;
+
+import com.example.demo.scheduling.TimeWindow;
+import com.example.demo.services.AvailabilityService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Free time answered from the in-memory timelines of AppointmentIndex, so a
+ * search only walks the appointments inside the requested range of the one
+ * resource asked about. Times are ISO-8601 local date-times, e.g.
+ * 2023-04-24T08:00.
+ */
+@RestController
+@RequestMapping("/api/availability")
+public class AvailabilityController {
+
+    @Autowired
+    AvailabilityService availabilityService;
+
+    @Value("${api.page.default-size:100}")
+    int defaultLimit;
+
+    @Value("${api.page.max-size:1000}")
+    int maxLimit;
+
+    @GetMapping("/rooms/{roomName}")
+    public ResponseEntity<List<TimeWindow>> getRoomFreeWindows(@PathVariable("roomName") String roomName,
+                                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                               @RequestParam int minutes,
+                                                               @RequestParam(required = false) Integer limit){
+        if (invalidSearch(from, to, minutes, limit)){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        Optional<List<TimeWindow>> free = availabilityService.roomFreeWindows(roomName, from, to,
+                Duration.ofMinutes(minutes), limitOf(limit));
+        if (! free.isPresent()){
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(free.get(), HttpStatus.OK);
+    }
+
+    @GetMapping("/doctors/{id}")
+    public ResponseEntity<List<TimeWindow>> getDoctorFreeWindows(@PathVariable("id") long id,
+                                                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                 @RequestParam int minutes,
+                                                                 @RequestParam(required = false) Integer limit){
+        if (invalidSearch(from, to, minutes, limit)){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        Optional<List<TimeWindow>> free = availabilityService.doctorFreeWindows(id, from, to,
+                Duration.ofMinutes(minutes), limitOf(limit));
+        if (! free.isPresent()){
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(free.get(), HttpStatus.OK);
+    }
+
+    /**
+     * Names of the rooms with nothing booked in [from, to).
+     */
+    @GetMapping("/rooms")
+    public ResponseEntity<List<String>> getFreeRooms(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to){
+        if (! from.isBefore(to)){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        return new ResponseEntity<>(availabilityService.freeRooms(from, to), HttpStatus.OK);
+    }
+
+    private boolean invalidSearch(LocalDateTime from, LocalDateTime to, int minutes, Integer limit){
+        return ! from.isBefore(to) ||
+               minutes < 1 ||
+               (limit != null && (limit < 1 || limit > maxLimit));
+    }
+
+    private int limitOf(Integer limit){
+        return limit == null ? defaultLimit : limit;
+    }
+}
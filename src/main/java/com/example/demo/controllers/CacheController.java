@@ -0,0 +1,27 @@
+package com.example.demo.controllers;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.cache.CacheRegionStats;
+import com.example.demo.cache.SecondLevelCacheStats;
+
+@RestController
+@RequestMapping("/api")
+public class CacheController {
+
+    @Autowired
+    SecondLevelCacheStats secondLevelCacheStats;
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<List<CacheRegionStats>> getCacheStats(){
+        return new ResponseEntity<>(secondLevelCacheStats.regions(), HttpStatus.OK);
+    }
+
+}
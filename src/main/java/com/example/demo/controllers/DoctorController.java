@@ -1,21 +1,29 @@
 package com.example.demo.controllers;
 
-import com.example.demo.repositories.*;
 import com.example.demo.entities.Doctor;
+import com.example.demo.services.DoctorService;
+import com.example.demo.cache.ResponseCache;
+import com.example.demo.paging.KeysetPage;
+import com.example.demo.paging.PageCursor;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 
@@ -24,13 +32,32 @@ import org.springframework.web.bind.annotation.RestController;
 public class DoctorController {
 
     @Autowired
-    DoctorRepository doctorRepository;
+    DoctorService doctorService;
+
+    @Autowired
+    ResponseCache responseCache;
+
+    @Value("${api.page.default-size:100}")
+    int defaultPageSize;
+
+    @Value("${api.page.max-size:1000}")
+    int maxPageSize;
 
     @GetMapping("/doctors")
-    public ResponseEntity<List<Doctor>> getAllDoctors(){
+    public ResponseEntity<?> getAllDoctors(@RequestParam(required = false) Integer size,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
+        return responseCache.serve("doctors", size + "|" + cursor, acceptEncoding, () -> loadDoctors(size, cursor));
+    }
+
+    private ResponseEntity<?> loadDoctors(Integer size, String cursor){
+        if (size != null || cursor != null){
+            return getDoctorPage(size, cursor);
+        }
+
         List<Doctor> doctors = new ArrayList<>();
 
-        doctorRepository.findAll().forEach(doctors::add);
+        doctorService.findAll().forEach(doctors::add);
 
         if (doctors.isEmpty()){
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
@@ -39,9 +66,22 @@ public class DoctorController {
         return new ResponseEntity<>(doctors, HttpStatus.OK);
     }
 
+    private ResponseEntity<KeysetPage<Doctor>> getDoctorPage(Integer size, String cursor){
+        try {
+            int pageSize = KeysetPage.sizeOf(size, defaultPageSize, maxPageSize);
+            long afterId = cursor == null ? 0 : Long.parseLong(PageCursor.decode(cursor, 1)[0]);
+
+            List<Doctor> rows = doctorService.findPageAfter(afterId, pageSize + 1);
+            return new ResponseEntity<>(KeysetPage.of(rows, pageSize, last -> PageCursor.encode(String.valueOf(last.getId()))),
+                                        HttpStatus.OK);
+        } catch (IllegalArgumentException ex) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @GetMapping("/doctors/{id}")
     public ResponseEntity<Doctor> getDoctorById(@PathVariable("id") long id){
-        Optional<Doctor> doctor = doctorRepository.findById(id);
+        Optional<Doctor> doctor = doctorService.findById(id);
         if (! doctor.isPresent()){
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
@@ -52,26 +92,34 @@ public class DoctorController {
     @PostMapping("/doctor")
     public ResponseEntity<Doctor> createDoctor(@RequestBody Doctor doc){
         Doctor d = new Doctor(doc.getFirstName(), doc.getLastName(), doc.getAge(), doc.getEmail());
-        doctorRepository.save(d);
+        doctorService.save(d);
+        responseCache.invalidate("doctors");
         return new ResponseEntity<>(d, HttpStatus.CREATED);
     }
 
     @DeleteMapping("/doctors/{id}")
     public ResponseEntity<HttpStatus> deleteDoctor(@PathVariable("id") long id){
-        Optional<Doctor> doctor = doctorRepository.findById(id);
-
-        if (! doctor.isPresent()){
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        try {
+            if (!doctorService.deleteById(id)){
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            responseCache.invalidate("doctors");
+            return new ResponseEntity<>(HttpStatus.OK);
+        } catch (DataIntegrityViolationException ex) {
+            // Still referenced by appointments.
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
         }
-
-        doctorRepository.deleteById(id);
-        return new ResponseEntity<>(HttpStatus.OK);
     }
 
     @DeleteMapping("/doctors")
     public ResponseEntity<HttpStatus> deleteAllDoctors(){
-        doctorRepository.deleteAll();
-        return new ResponseEntity<>(HttpStatus.OK);
+        try {
+            doctorService.deleteAll();
+            responseCache.invalidate("doctors");
+            return new ResponseEntity<>(HttpStatus.OK);
+        } catch (DataIntegrityViolationException ex) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
     }
 
 }
@@ -1,22 +1,27 @@
 
 package com.example.demo.controllers;
 
-import com.example.demo.repositories.*;
 import com.example.demo.entities.Patient;
+import com.example.demo.services.PatientService;
+import com.example.demo.paging.KeysetPage;
+import com.example.demo.paging.PageCursor;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 
@@ -25,13 +30,24 @@ import org.springframework.web.bind.annotation.RestController;
 public class PatientController {
 
     @Autowired
-    PatientRepository patientRepository;
+    PatientService patientService;
+
+    @Value("${api.page.default-size:100}")
+    int defaultPageSize;
+
+    @Value("${api.page.max-size:1000}")
+    int maxPageSize;
 
     @GetMapping("/patients")
-    public ResponseEntity<List<Patient>> getAllPatients(){
+    public ResponseEntity<?> getAllPatients(@RequestParam(required = false) Integer size,
+                                            @RequestParam(required = false) String cursor){
+        if (size != null || cursor != null){
+            return getPatientPage(size, cursor);
+        }
+
         List<Patient> patients = new ArrayList<>();
 
-        patientRepository.findAll().forEach(patients::add);
+        patientService.findAll().forEach(patients::add);
 
         if (patients.isEmpty()){
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
@@ -40,9 +56,22 @@ public class PatientController {
         return new ResponseEntity<>(patients, HttpStatus.OK);
     }
 
+    private ResponseEntity<KeysetPage<Patient>> getPatientPage(Integer size, String cursor){
+        try {
+            int pageSize = KeysetPage.sizeOf(size, defaultPageSize, maxPageSize);
+            long afterId = cursor == null ? 0 : Long.parseLong(PageCursor.decode(cursor, 1)[0]);
+
+            List<Patient> rows = patientService.findPageAfter(afterId, pageSize + 1);
+            return new ResponseEntity<>(KeysetPage.of(rows, pageSize, last -> PageCursor.encode(String.valueOf(last.getId()))),
+                                        HttpStatus.OK);
+        } catch (IllegalArgumentException ex) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @GetMapping("/patients/{id}")
     public ResponseEntity<Patient> getPatientById(@PathVariable("id") long id){
-        Optional<Patient> patient = patientRepository.findById(id);
+        Optional<Patient> patient = patientService.findById(id);
         if (! patient.isPresent()){
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
@@ -52,24 +81,31 @@ public class PatientController {
     @PostMapping("/patient")
     public ResponseEntity<Patient> createPatient(@RequestBody Patient pat){
         Patient d = new Patient(pat.getFirstName(), pat.getLastName(), pat.getAge(), pat.getEmail());
-        patientRepository.save(d);
+        patientService.save(d);
         return new ResponseEntity<>(d, HttpStatus.CREATED);
     }
 
     @DeleteMapping("/patients/{id}")
     public ResponseEntity<HttpStatus> deletePatient(@PathVariable("id") long id){
-        Optional<Patient> patient = patientRepository.findById(id);
-        if (! patient.isPresent()){
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        try {
+            if (!patientService.deleteById(id)){
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(HttpStatus.OK);
+        } catch (DataIntegrityViolationException ex) {
+            // Still referenced by appointments.
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
         }
-        patientRepository.deleteById(id);
-        return new ResponseEntity<>(HttpStatus.OK);
     }
 
     @DeleteMapping("/patients")
     public ResponseEntity<HttpStatus> deleteAllPatients(){
-        patientRepository.deleteAll();
-        return new ResponseEntity<>(HttpStatus.OK);
+        try {
+            patientService.deleteAll();
+            return new ResponseEntity<>(HttpStatus.OK);
+        } catch (DataIntegrityViolationException ex) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
     }
 
 }
@@ -1,22 +1,30 @@
 
 package com.example.demo.controllers;
 
-import com.example.demo.repositories.*;
 import com.example.demo.entities.Room;
+import com.example.demo.services.RoomService;
+import com.example.demo.cache.ResponseCache;
+import com.example.demo.paging.KeysetPage;
+import com.example.demo.paging.PageCursor;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 
@@ -25,13 +33,32 @@ import org.springframework.web.bind.annotation.RestController;
 public class RoomController {
 
     @Autowired
-    RoomRepository roomRepository;
+    RoomService roomService;
+
+    @Autowired
+    ResponseCache responseCache;
+
+    @Value("${api.page.default-size:100}")
+    int defaultPageSize;
+
+    @Value("${api.page.max-size:1000}")
+    int maxPageSize;
 
     @GetMapping("/rooms")
-    public ResponseEntity<List<Room>> getAllRooms(){
+    public ResponseEntity<?> getAllRooms(@RequestParam(required = false) Integer size,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
+        return responseCache.serve("rooms", size + "|" + cursor, acceptEncoding, () -> loadRooms(size, cursor));
+    }
+
+    private ResponseEntity<?> loadRooms(Integer size, String cursor){
+        if (size != null || cursor != null){
+            return getRoomPage(size, cursor);
+        }
+
         List<Room> rooms = new ArrayList<>();
 
-        roomRepository.findAll().forEach(rooms::add);
+        roomService.findAll().forEach(rooms::add);
 
         if (rooms.isEmpty()){
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
@@ -40,9 +67,22 @@ public class RoomController {
         return new ResponseEntity<>(rooms, HttpStatus.OK);
     }
 
+    private ResponseEntity<KeysetPage<Room>> getRoomPage(Integer size, String cursor){
+        try {
+            int pageSize = KeysetPage.sizeOf(size, defaultPageSize, maxPageSize);
+            String afterName = cursor == null ? "" : PageCursor.decode(cursor, 1)[0];
+
+            List<Room> rows = roomService.findPageAfter(afterName, pageSize + 1);
+            return new ResponseEntity<>(KeysetPage.of(rows, pageSize, last -> PageCursor.encode(last.getRoomName())),
+                                        HttpStatus.OK);
+        } catch (IllegalArgumentException ex) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @GetMapping("/rooms/{roomName}")
     public ResponseEntity<Room> getRoomByRoomName(@PathVariable("roomName") String roomName){
-        Optional<Room> room = roomRepository.findByRoomName(roomName);
+        Optional<Room> room = roomService.findByRoomName(roomName);
         if (!room.isPresent()){
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
@@ -52,24 +92,34 @@ public class RoomController {
     @PostMapping("/room")
     public ResponseEntity<Room> createRoom(@RequestBody Room room){
         Room tmp = new Room(room.getRoomName());
-        roomRepository.save(tmp);
+        roomService.save(tmp);
+        responseCache.invalidate("rooms");
         return new ResponseEntity<>(tmp, HttpStatus.CREATED);
     }
 
     @DeleteMapping("/rooms/{roomName}")
     public ResponseEntity<HttpStatus> deleteRoom(@PathVariable("roomName") String roomName){
-        Optional<Room> room = roomRepository.findByRoomName(roomName);
-        if (! room.isPresent()){
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        try {
+            if (!roomService.deleteByRoomName(roomName)){
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            responseCache.invalidate("rooms");
+            return new ResponseEntity<>(HttpStatus.OK);
+        } catch (DataIntegrityViolationException ex) {
+            // Still referenced by appointments.
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
         }
-        roomRepository.deleteByRoomName(roomName);
-        return new ResponseEntity<>(HttpStatus.OK);
     }
 
     @DeleteMapping("/rooms")
     public ResponseEntity<HttpStatus> deleteAllRooms(){
-        roomRepository.deleteAll();
-        return new ResponseEntity<>(HttpStatus.OK);
+        try {
+            roomService.deleteAll();
+            responseCache.invalidate("rooms");
+            return new ResponseEntity<>(HttpStatus.OK);
+        } catch (DataIntegrityViolationException ex) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
     }
 
 }
@@ -1,6 +1,7 @@
 package com.example.demo.entities;
 
 import java.time.LocalDateTime;
+import java.util.Objects;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
@@ -9,29 +10,43 @@ import javax.persistence.*;
 import com.fasterxml.jackson.annotation.JsonFormat;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_appointment_room_period", columnList = "room_id, starts_at, finishes_at"),
+    @Index(name = "idx_appointment_doctor_period", columnList = "doctor_id, starts_at, finishes_at"),
+    @Index(name = "idx_appointment_patient_period", columnList = "patient_id, starts_at, finishes_at"),
+    @Index(name = "idx_appointment_starts_at", columnList = "starts_at, id")
+})
 public class Appointment {
 
     @Id
-    @GeneratedValue(strategy=GenerationType.AUTO)
+    @GeneratedValue(strategy=GenerationType.SEQUENCE, generator="appointment_seq")
+    @SequenceGenerator(name="appointment_seq", sequenceName="appointment_seq", allocationSize=50)
     private long id;
 
 
-    @ManyToOne(cascade = CascadeType.ALL)
+    // No cascades: booking only references existing rows, and deleting an
+    // appointment must leave its patient, doctor and room alone. Lazy, so
+    // loading an appointment no longer drags in all three; the repository
+    // queries that return appointments to serialize fetch them in the same
+    // select through an entity graph.
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id", referencedColumnName = "id")
     private Patient patient;
 
-    @ManyToOne(cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "doctor_id", referencedColumnName = "id")
     private Doctor doctor;
 
-    @ManyToOne(cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "room_id", referencedColumnName = "roomName")
     private Room room;
 
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "HH:mm dd/MM/yyyy")
+    @Column(name = "starts_at")
     private LocalDateTime startsAt;
 
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "HH:mm dd/MM/yyyy")
+    @Column(name = "finishes_at")
     private LocalDateTime finishesAt;
 
     public Appointment(){
@@ -89,26 +104,22 @@ public class Appointment {
         this.room = room;
     }
     
-    public boolean overlaps( Appointment appointment){
-        /// True when:
-        // Case 1: A.starts == B.starts
-        // Case 2: A.finishes == B.finishes 
-        // Case 3: A.starts < B.finishes && B.finishes < A.finishes
-        // Case 4: B.starts < A.starts && A.finishes < B.finishes
-        if (appointment.getRoom().getRoomName().equals(this.getRoom().getRoomName())){ 
-            if (this.getStartsAt().equals(appointment.getStartsAt()) || 
-                    appointment.getFinishesAt().equals(this.getFinishesAt())){
-                return true;
-                    }
-            if (appointment.getFinishesAt().isAfter(this.getStartsAt()) && appointment.getFinishesAt().isBefore(this.getFinishesAt())){
-                return true;
-            }
-            if ( appointment.getStartsAt().isAfter(this.getStartsAt()) && appointment.getStartsAt().isBefore(this.getFinishesAt())){
-                return true;
-            }
+    /**
+     * Whether both appointments are in the same room and their half-open
+     * periods [startsAt, finishesAt) intersect. Each one has to start before
+     * the other finishes, which also covers one containing the other.
+     */
+    public boolean overlaps(Appointment appointment){
+        return sameRoom(appointment)
+                && this.startsAt.compareTo(appointment.finishesAt) < 0
+                && appointment.startsAt.compareTo(this.finishesAt) < 0;
+    }
+
+    private boolean sameRoom(Appointment appointment){
+        if (this.room == null || appointment.room == null){
+            return this.room == appointment.room;
         }
-        
-        return false;
+        return Objects.equals(this.room.getRoomName(), appointment.room.getRoomName());
     }
 
 }
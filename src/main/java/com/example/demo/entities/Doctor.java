@@ -2,12 +2,23 @@ package com.example.demo.entities;
 
 import javax.persistence.*;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 @Entity
 @Table(name="doctors")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+// An uninitialized proxy, from a lazy Appointment association, carries these
+// two Hibernate internals that Jackson must skip.
+@JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
 public class Doctor extends Person {
 
     @Id
-    @GeneratedValue(strategy=GenerationType.AUTO)
+    @GeneratedValue(strategy=GenerationType.SEQUENCE, generator="doctor_seq")
+    @SequenceGenerator(name="doctor_seq", sequenceName="doctor_seq", allocationSize=50)
     private long id;
  
     public Doctor() {
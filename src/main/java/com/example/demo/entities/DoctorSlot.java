@@ -0,0 +1,41 @@
+package com.example.demo.entities;
+
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * One fixed-length slot of a doctor's time claimed by an appointment, keyed
+ * like {@link RoomSlot} by (doctor_id, slot_start) so that two instances cannot
+ * both book the same doctor for the same slot.
+ */
+@Entity
+@Table(name = "doctor_slot")
+public class DoctorSlot {
+
+    @EmbeddedId
+    private DoctorSlotId id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "appointment_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Appointment appointment;
+
+    public DoctorSlot(){
+        super();
+    }
+
+    public DoctorSlotId getId(){
+        return this.id;
+    }
+
+    public Appointment getAppointment(){
+        return this.appointment;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.entities;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+@Embeddable
+public class DoctorSlotId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Column(name = "doctor_id")
+    private long doctorId;
+
+    @Column(name = "slot_start")
+    private LocalDateTime slotStart;
+
+    public DoctorSlotId(){
+        super();
+    }
+
+    public DoctorSlotId(long doctorId, LocalDateTime slotStart){
+        this.doctorId = doctorId;
+        this.slotStart = slotStart;
+    }
+
+    public long getDoctorId(){
+        return this.doctorId;
+    }
+
+    public LocalDateTime getSlotStart(){
+        return this.slotStart;
+    }
+
+    @Override
+    public boolean equals(Object o){
+        if (this == o){
+            return true;
+        }
+        if (!(o instanceof DoctorSlotId)){
+            return false;
+        }
+        DoctorSlotId other = (DoctorSlotId) o;
+        return doctorId == other.doctorId && Objects.equals(slotStart, other.slotStart);
+    }
+
+    @Override
+    public int hashCode(){
+        return Objects.hash(doctorId, slotStart);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.entities;
+
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * A slot of a patient's time claimed by an appointment. The (patient_id,
+ * slot_start) key keeps a patient from being booked twice into one slot,
+ * whichever instance takes the bookings.
+ */
+@Entity
+@Table(name = "patient_slot")
+public class PatientSlot {
+
+    @EmbeddedId
+    private PatientSlotId id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "appointment_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Appointment appointment;
+
+    public PatientSlot(){
+        super();
+    }
+
+    public PatientSlotId getId(){
+        return this.id;
+    }
+
+    public Appointment getAppointment(){
+        return this.appointment;
+    }
+}
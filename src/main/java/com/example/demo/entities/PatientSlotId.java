@@ -0,0 +1,54 @@
+package com.example.demo.entities;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+@Embeddable
+public class PatientSlotId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Column(name = "patient_id")
+    private long patientId;
+
+    @Column(name = "slot_start")
+    private LocalDateTime slotStart;
+
+    public PatientSlotId(){
+        super();
+    }
+
+    public PatientSlotId(long patientId, LocalDateTime slotStart){
+        this.patientId = patientId;
+        this.slotStart = slotStart;
+    }
+
+    public long getPatientId(){
+        return this.patientId;
+    }
+
+    public LocalDateTime getSlotStart(){
+        return this.slotStart;
+    }
+
+    @Override
+    public boolean equals(Object o){
+        if (this == o){
+            return true;
+        }
+        if (!(o instanceof PatientSlotId)){
+            return false;
+        }
+        PatientSlotId other = (PatientSlotId) o;
+        return patientId == other.patientId && Objects.equals(slotStart, other.slotStart);
+    }
+
+    @Override
+    public int hashCode(){
+        return Objects.hash(patientId, slotStart);
+    }
+}
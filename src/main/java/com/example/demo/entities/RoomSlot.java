@@ -0,0 +1,43 @@
+package com.example.demo.entities;
+
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * One fixed-length slot of a room claimed by an appointment.
+ *
+ * The primary key is (room_id, slot_start), so the database itself refuses a
+ * second claim on the same slot no matter which instance issued it. Rows go
+ * away with their appointment through the ON DELETE CASCADE foreign key.
+ */
+@Entity
+@Table(name = "room_slot")
+public class RoomSlot {
+
+    @EmbeddedId
+    private RoomSlotId id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "appointment_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Appointment appointment;
+
+    public RoomSlot(){
+        super();
+    }
+
+    public RoomSlotId getId(){
+        return this.id;
+    }
+
+    public Appointment getAppointment(){
+        return this.appointment;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.entities;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+@Embeddable
+public class RoomSlotId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Column(name = "room_id")
+    private String roomName;
+
+    @Column(name = "slot_start")
+    private LocalDateTime slotStart;
+
+    public RoomSlotId(){
+        super();
+    }
+
+    public RoomSlotId(String roomName, LocalDateTime slotStart){
+        this.roomName = roomName;
+        this.slotStart = slotStart;
+    }
+
+    public String getRoomName(){
+        return this.roomName;
+    }
+
+    public LocalDateTime getSlotStart(){
+        return this.slotStart;
+    }
+
+    @Override
+    public boolean equals(Object o){
+        if (this == o){
+            return true;
+        }
+        if (!(o instanceof RoomSlotId)){
+            return false;
+        }
+        RoomSlotId other = (RoomSlotId) o;
+        return Objects.equals(roomName, other.roomName) && Objects.equals(slotStart, other.slotStart);
+    }
+
+    @Override
+    public int hashCode(){
+        return Objects.hash(roomName, slotStart);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.jfr;
+
+import org.springframework.http.ResponseEntity;
+
+import com.example.demo.scheduling.BookingConflict;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One single-appointment booking, from the handler's start to its answer.
+ */
+@Name("com.example.demo.Booking")
+@Label("Booking")
+@Category({ "Hospital", "Scheduling" })
+public class BookingEvent extends jdk.jfr.Event {
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Room")
+    String room;
+
+    @Label("Outcome")
+    @Description("HttpStatus the booking was answered with")
+    String outcome;
+
+    @Label("Conflict")
+    @Description("Resource that was already booked, if any")
+    String conflict;
+
+    public static BookingEvent begin(String endpoint) {
+        BookingEvent event = new BookingEvent();
+        event.endpoint = endpoint;
+        event.begin();
+        return event;
+    }
+
+    public void end(String room, ResponseEntity<BookingConflict> response) {
+        end();
+        if (shouldCommit()) {
+            this.room = room;
+            this.outcome = response.getStatusCode().name();
+            this.conflict = response.getBody() == null ? null : response.getBody().getResource().name();
+            commit();
+        }
+    }
+}
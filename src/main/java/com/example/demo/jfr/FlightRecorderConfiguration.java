@@ -0,0 +1,43 @@
+package com.example.demo.jfr;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Custom Java Flight Recorder events for requests and repository calls;
+ * bookings and overlap checks emit theirs where they happen.
+ *
+ * Events cost next to nothing unless a recording enables them, so they are
+ * always registered. The bundled jfr/hospital.jfc enables all of them, e.g.
+ *
+ *   java -XX:StartFlightRecording=settings=/path/to/hospital.jfc,filename=hospital.jfr ...
+ *
+ * and JfrLatencyReport turns the recording into per-endpoint histograms.
+ */
+@Configuration
+public class FlightRecorderConfiguration {
+
+    @Bean
+    public RequestEventFilter requestEventFilter() {
+        return new RequestEventFilter();
+    }
+
+    // Static so repository factories are customized before they are initialized.
+    @Bean
+    public static BeanPostProcessor repositoryCallEvents() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport) {
+                    ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(
+                            factory -> factory.addRepositoryProxyPostProcessor((proxyFactory, information) ->
+                                    proxyFactory.addAdvice(new RepositoryCallInterceptor(
+                                            information.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+}
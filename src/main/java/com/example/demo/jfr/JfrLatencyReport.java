@@ -0,0 +1,181 @@
+package com.example.demo.jfr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Offline summary of a Flight Recorder recording: latency percentiles and a
+ * histogram per endpoint, per booking outcome, per overlap-check result and
+ * per repository method, from the application's own events.
+ *
+ *   java -cp target/classes com.example.demo.jfr.JfrLatencyReport hospital.jfr [report.txt]
+ *
+ * It needs nothing beyond the JDK, so from a deployed WAR point -cp at its
+ * unpacked WEB-INF/classes instead; the WAR itself is not a classpath entry.
+ *
+ * Events are read one at a time, so only their durations are held in memory.
+ */
+public final class JfrLatencyReport {
+
+    // Histogram bucket upper bounds, in milliseconds; the last bucket is open.
+    private static final double[] BOUNDS = { 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000,
+            10000 };
+    private static final int BAR_WIDTH = 40;
+
+    private final Map<String, Map<String, Samples>> sections = new LinkedHashMap<>();
+
+    private JfrLatencyReport() {
+        sections.put("Requests", new TreeMap<>());
+        sections.put("Bookings", new TreeMap<>());
+        sections.put("Overlap checks", new TreeMap<>());
+        sections.put("Repository calls", new TreeMap<>());
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: JfrLatencyReport <recording.jfr> [report.txt]");
+            System.exit(2);
+        }
+        String report = summarize(Paths.get(args[0]));
+        if (args.length > 1) {
+            Files.write(Paths.get(args[1]), report.getBytes(StandardCharsets.UTF_8));
+        } else {
+            System.out.print(report);
+        }
+    }
+
+    public static String summarize(Path recording) throws IOException {
+        JfrLatencyReport report = new JfrLatencyReport();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                report.add(file.readEvent());
+            }
+        }
+        return report.format(recording);
+    }
+
+    private void add(RecordedEvent event) {
+        long nanos = event.getDuration().toNanos();
+        switch (event.getEventType().getName()) {
+        case "com.example.demo.Request":
+            samples("Requests", event.getString("method") + " " + event.getString("uri")).add(nanos);
+            break;
+        case "com.example.demo.Booking":
+            samples("Bookings", event.getString("endpoint") + " " + event.getString("outcome")).add(nanos);
+            break;
+        case "com.example.demo.OverlapCheck":
+            samples("Overlap checks", "conflict " + event.getString("conflict")).add(nanos);
+            break;
+        case "com.example.demo.RepositoryCall":
+            samples("Repository calls", event.getString("repository") + "." + event.getString("method")
+                    + (event.getBoolean("succeeded") ? "" : " (failed)")).add(nanos);
+            break;
+        default:
+            break;
+        }
+    }
+
+    private Samples samples(String section, String key) {
+        return sections.get(section).computeIfAbsent(key, k -> new Samples());
+    }
+
+    private String format(Path recording) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(buffer, false, "UTF-8")) {
+            out.printf("Latency report for %s%n", recording);
+            for (Map.Entry<String, Map<String, Samples>> section : sections.entrySet()) {
+                out.printf("%n== %s ==%n", section.getKey());
+                if (section.getValue().isEmpty()) {
+                    out.println("(no events)");
+                }
+                section.getValue().forEach((key, samples) -> print(out, key, samples));
+            }
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void print(PrintStream out, String key, Samples samples) {
+        long[] sorted = Arrays.copyOf(samples.values, samples.size);
+        Arrays.sort(sorted);
+        out.printf(Locale.ROOT, "%n%s%n  count=%d p50=%.3f ms p90=%.3f ms p99=%.3f ms max=%.3f ms%n", key, sorted.length,
+                millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.90)), millis(percentile(sorted, 0.99)),
+                millis(sorted[sorted.length - 1]));
+
+        int[] counts = new int[BOUNDS.length + 1];
+        for (long nanos : sorted) {
+            counts[bucket(millis(nanos))]++;
+        }
+        int first = 0;
+        while (counts[first] == 0) {
+            first++;
+        }
+        int last = counts.length - 1;
+        while (counts[last] == 0) {
+            last--;
+        }
+        int highest = Arrays.stream(counts).max().getAsInt();
+        for (int i = first; i <= last; i++) {
+            String label = i < BOUNDS.length ? "<= " + bound(BOUNDS[i]) + " ms"
+                    : " > " + bound(BOUNDS[BOUNDS.length - 1]) + " ms";
+            int width = (int) Math.ceil((double) counts[i] * BAR_WIDTH / highest);
+            out.printf(Locale.ROOT, "  %-14s |%-" + BAR_WIDTH + "s %d%n", label, repeat('#', width), counts[i]);
+        }
+    }
+
+    // Nearest rank.
+    private static long percentile(long[] sorted, double p) {
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static int bucket(double millis) {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            if (millis <= BOUNDS[i]) {
+                return i;
+            }
+        }
+        return BOUNDS.length;
+    }
+
+    private static String bound(double millis) {
+        return millis == Math.rint(millis) ? String.valueOf((long) millis) : String.valueOf(millis);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static String repeat(char c, int times) {
+        char[] chars = new char[times];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static final class Samples {
+        private long[] values = new long[16];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
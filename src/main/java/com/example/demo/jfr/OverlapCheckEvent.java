@@ -0,0 +1,51 @@
+package com.example.demo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One booking conflict check against the in-memory index.
+ */
+@Name("com.example.demo.OverlapCheck")
+@Label("Overlap Check")
+@Category({ "Hospital", "Scheduling" })
+public class OverlapCheckEvent extends jdk.jfr.Event {
+
+    @Label("Room")
+    String room;
+
+    @Label("Candidates")
+    @Description("Appointments already booked on the room, doctor and patient timelines that were loaded")
+    int candidates;
+
+    @Label("Conflict")
+    @Description("Resource that was already booked, or none")
+    String conflict;
+
+    private static final EventType TYPE = EventType.getEventType(OverlapCheckEvent.class);
+
+    /**
+     * Whether a running recording has this event enabled, so that callers
+     * only create one when it can be committed.
+     */
+    public static boolean isRecorded() {
+        return TYPE.isEnabled();
+    }
+
+    public static OverlapCheckEvent begin(String room) {
+        OverlapCheckEvent event = new OverlapCheckEvent();
+        event.room = room;
+        event.begin();
+        return event;
+    }
+
+    /** Call after {@link #end()}, and only when {@link #shouldCommit()}. */
+    public void commit(int candidates, String conflict) {
+        this.candidates = candidates;
+        this.conflict = conflict;
+        commit();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One call through a Spring Data repository proxy.
+ */
+@Name("com.example.demo.RepositoryCall")
+@Label("Repository Call")
+@Category({ "Hospital", "Persistence" })
+public class RepositoryCallEvent extends jdk.jfr.Event {
+
+    @Label("Repository")
+    String repository;
+
+    @Label("Method")
+    String method;
+
+    @Label("Succeeded")
+    boolean succeeded;
+}
@@ -0,0 +1,26 @@
+package com.example.demo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One HTTP request, from the filter chain's start to its end, keyed by the
+ * handler's URI pattern so that recordings can be summarized per endpoint.
+ */
+@Name("com.example.demo.Request")
+@Label("API Request")
+@Category({ "Hospital", "API" })
+public class RequestEvent extends jdk.jfr.Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("URI")
+    @Description("Matched URI pattern, or UNKNOWN when no handler matched")
+    String uri;
+
+    @Label("Status")
+    int status;
+}
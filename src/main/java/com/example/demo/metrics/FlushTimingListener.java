@@ -0,0 +1,32 @@
+package com.example.demo.metrics;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Times Hibernate flushes, including the partial ones before a query.
+ * Hibernate creates one per session, see ServerTimingConfiguration.
+ */
+public class FlushTimingListener extends BaseSessionEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public void flushStart() {
+        ServerTiming.begin(ServerTiming.Phase.FLUSH);
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        ServerTiming.end(ServerTiming.Phase.FLUSH);
+    }
+
+    @Override
+    public void partialFlushStart() {
+        ServerTiming.begin(ServerTiming.Phase.FLUSH);
+    }
+
+    @Override
+    public void partialFlushEnd(int numberOfEntities, int numberOfCollections) {
+        ServerTiming.end(ServerTiming.Phase.FLUSH);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.metrics;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Metrics on top of what Actuator records by itself.
+ *
+ * Every handler is already timed into http.server.requests, every repository
+ * method into spring.data.repository.invocations and the Hikari pool into
+ * hikaricp.*. Handler timers also get a status.name tag here, the HttpStatus
+ * constant the controllers answer with (NO_CONTENT, NOT_ACCEPTABLE, ...), so
+ * alerts can be written against the same names the code uses.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public WebMvcTagsContributor statusNameTagsContributor() {
+        return new WebMvcTagsContributor() {
+
+            @Override
+            public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler,
+                    Throwable exception) {
+                return Tags.of("status.name", statusName(response));
+            }
+
+            @Override
+            public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+                return Tags.empty();
+            }
+        };
+    }
+
+    static String statusName(HttpServletResponse response) {
+        if (response == null) {
+            return "UNKNOWN";
+        }
+        HttpStatus status = HttpStatus.resolve(response.getStatus());
+        return status == null ? String.valueOf(response.getStatus()) : status.name();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.metrics;
+
+/**
+ * JDBC work done on behalf of one HTTP request: statements executed (a
+ * batch counts once, as one round trip), rows read or written, and time
+ * spent inside the driver.
+ *
+ * The stats of the request being served are bound to its thread, so only
+ * statements issued on that thread are counted; work handed to another
+ * thread, such as a streamed response body, is not.
+ */
+public final class QueryStats {
+
+    /** Request attribute the stats are left under once the request is done. */
+    public static final String ATTRIBUTE = QueryStats.class.getName();
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long rows;
+    private long nanos;
+    private long queryStartedAt;
+
+    static QueryStats start() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    // Statements on one thread never overlap, so one start time is enough.
+    void queryStarted(long now) {
+        queryStartedAt = now;
+    }
+
+    void queryFinished(long now, long rowsWritten) {
+        statements++;
+        rows += rowsWritten;
+        nanos += now - queryStartedAt;
+    }
+
+    void rowRead() {
+        rows++;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.metrics;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Wraps the data source in a datasource-proxy that feeds {@link QueryStats},
+ * and registers the filter that scopes them to a request. Off unless
+ * api.query-stats.enabled=true, since every connection and statement then
+ * goes through a proxy.
+ *
+ * Rows read are only counted with api.query-stats.rows-read=true as well,
+ * which proxies every result set and intercepts each next() call on it; by
+ * default the row counts hold the rows written only.
+ */
+@Configuration
+@ConditionalOnProperty(name = "api.query-stats.enabled")
+public class QueryStatsConfiguration {
+
+    // Static so the data source can be wrapped before anything else is created.
+    @Bean
+    public static BeanPostProcessor queryStatsDataSourceProxy(Environment environment) {
+        boolean rowsRead = environment.getProperty("api.query-stats.rows-read", Boolean.class, false);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                QueryStatsListener listener = new QueryStatsListener();
+                ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(beanName, (DataSource) bean)
+                        .listener(listener);
+                if (rowsRead) {
+                    builder.proxyResultSet().methodListener(listener);
+                }
+                return builder.build();
+            }
+        };
+    }
+
+    @Bean
+    public QueryStatsFilter queryStatsFilter(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new QueryStatsFilter(meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.metrics;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Collects the JDBC work of each request into a {@link QueryStats}.
+ *
+ * The counts go out in the X-Query-Count, X-Query-Rows and X-Query-Time (ms)
+ * headers; rows read only count towards X-Query-Rows with
+ * api.query-stats.rows-read=true. Headers cannot change once the body
+ * starts, so those cover the work done up to then; anything run while the
+ * body is written, such as a lazy load during serialization, only shows in
+ * the metrics (sql.request.statements, sql.request.rows and
+ * sql.request.time, tagged by method and uri) and in the
+ * {@link QueryStats#ATTRIBUTE} request attribute.
+ */
+public class QueryStatsFilter extends OncePerRequestFilter {
+
+    public static final String COUNT_HEADER = "X-Query-Count";
+    public static final String ROWS_HEADER = "X-Query-Rows";
+    public static final String TIME_HEADER = "X-Query-Time";
+
+    private final MeterRegistry meterRegistry;
+
+    public QueryStatsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryStats stats = QueryStats.start();
+        CommitHookResponse statsResponse = new CommitHookResponse(response, () -> writeHeaders(response, stats));
+        try {
+            filterChain.doFilter(request, statsResponse);
+        } finally {
+            QueryStats.stop();
+            statsResponse.beforeCommit();
+            request.setAttribute(QueryStats.ATTRIBUTE, stats);
+            record(request, stats);
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Tags tags = Tags.of("method", request.getMethod(), "uri", pattern == null ? "UNKNOWN" : pattern.toString());
+        DistributionSummary.builder("sql.request.statements").baseUnit("statements").tags(tags)
+                .register(meterRegistry).record(stats.getStatements());
+        DistributionSummary.builder("sql.request.rows").baseUnit("rows").tags(tags)
+                .register(meterRegistry).record(stats.getRows());
+        Timer.builder("sql.request.time").tags(tags)
+                .register(meterRegistry).record(stats.getNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private static void writeHeaders(HttpServletResponse response, QueryStats stats) {
+        response.setHeader(COUNT_HEADER, String.valueOf(stats.getStatements()));
+        response.setHeader(ROWS_HEADER, String.valueOf(stats.getRows()));
+        response.setHeader(TIME_HEADER, String.format(Locale.ROOT, "%.3f", stats.getNanos() / 1e6));
+    }
+}
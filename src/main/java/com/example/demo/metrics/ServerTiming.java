@@ -0,0 +1,117 @@
+package com.example.demo.metrics;
+
+import java.util.Locale;
+
+/**
+ * Time spent in each phase of the request being served, for the
+ * Server-Timing header.
+ *
+ * The recorder is bound to the request's thread by the ServerTimingFilter;
+ * outside a request every call here is a no-op. Recording allocates nothing:
+ * a phase is a slot in a few primitive arrays, and the header is only built
+ * once, when the response is about to be committed.
+ */
+public final class ServerTiming {
+
+    public static final String HEADER = "Server-Timing";
+
+    public enum Phase {
+        PARSE("parse", "JSON request body"),
+        OVERLAP("overlap", "Booking conflict checks"),
+        FLUSH("flush", "Hibernate flush"),
+        SERIALIZE("serialize", "JSON response body");
+
+        private final String metricName;
+        private final String description;
+
+        Phase(String metricName, String description) {
+            this.metricName = metricName;
+            this.description = description;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+
+    private final long startedAt = System.nanoTime();
+    private final long[] nanos = new long[PHASES.length];
+    private final int[] counts = new int[PHASES.length];
+    private final long[] begunAt = new long[PHASES.length];
+
+    static ServerTiming start() {
+        ServerTiming timing = new ServerTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    public static void record(Phase phase, long nanos) {
+        ServerTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.nanos[phase.ordinal()] += nanos;
+            timing.counts[phase.ordinal()]++;
+        }
+    }
+
+    /**
+     * Marks the start of a phase that ends in another callback. Phases of
+     * one kind must not nest.
+     */
+    public static void begin(Phase phase) {
+        ServerTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.begunAt[phase.ordinal()] = System.nanoTime();
+        }
+    }
+
+    public static void end(Phase phase) {
+        ServerTiming timing = CURRENT.get();
+        if (timing != null && timing.begunAt[phase.ordinal()] != 0) {
+            record(phase, System.nanoTime() - timing.begunAt[phase.ordinal()]);
+            timing.begunAt[phase.ordinal()] = 0;
+        }
+    }
+
+    public long nanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    public int count(Phase phase) {
+        return counts[phase.ordinal()];
+    }
+
+    /**
+     * The phases seen so far, each with its count, then the total time since
+     * the request came in, e.g.
+     * {@code overlap;desc="Booking conflict checks (1)";dur=0.042, total;dur=3.210}.
+     */
+    String header() {
+        StringBuilder header = new StringBuilder(160);
+        for (Phase phase : PHASES) {
+            if (counts[phase.ordinal()] > 0) {
+                header.append(phase.metricName).append(";desc=\"").append(phase.description)
+                        .append(" (").append(counts[phase.ordinal()]).append(")\";dur=");
+                appendMillis(header, nanos[phase.ordinal()]).append(", ");
+            }
+        }
+        return appendMillis(header.append("total;dur="), System.nanoTime() - startedAt).toString();
+    }
+
+    /** The same figures as key=value pairs, in milliseconds. */
+    String logFields() {
+        StringBuilder fields = new StringBuilder(160);
+        for (Phase phase : PHASES) {
+            fields.append(phase.metricName).append("_ms=");
+            appendMillis(fields, nanos[phase.ordinal()]).append(' ')
+                    .append(phase.metricName).append("_count=").append(counts[phase.ordinal()]).append(' ');
+        }
+        return appendMillis(fields.append("total_ms="), System.nanoTime() - startedAt).toString();
+    }
+
+    private static StringBuilder appendMillis(StringBuilder to, long nanos) {
+        return to.append(String.format(Locale.ROOT, "%.3f", nanos / 1e6));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Server-Timing for every request: the filter that owns the recorder, the
+ * JSON converter that times serialization, and the Hibernate listener that
+ * times flushes. Parsing and overlap checks report to the
+ * recorder on their own and do nothing while it is turned off with
+ * api.server-timing.enabled=false.
+ */
+@Configuration
+@ConditionalOnProperty(name = "api.server-timing.enabled", matchIfMissing = true)
+public class ServerTimingConfiguration {
+
+    @Value("${api.server-timing.log:false}")
+    private boolean logRequests;
+
+    @Bean
+    public ServerTimingFilter serverTimingFilter() {
+        return new ServerTimingFilter(logRequests);
+    }
+
+    // Replaces the converter Spring Boot would otherwise register.
+    @Bean
+    public MappingJackson2HttpMessageConverter timedJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        return new TimedJsonHttpMessageConverter(objectMapper);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer flushTimingCustomizer() {
+        return properties -> properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+                FlushTimingListener.class.getName());
+    }
+}
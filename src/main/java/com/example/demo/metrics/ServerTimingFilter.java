@@ -0,0 +1,48 @@
+package com.example.demo.metrics;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Binds a {@link ServerTiming} recorder to each request and sends what it
+ * saw in the Server-Timing header. With api.server-timing.log=true every
+ * request is also logged as one line of key=value pairs once it is done.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+    private final boolean logRequests;
+
+    public ServerTimingFilter(boolean logRequests) {
+        this.logRequests = logRequests;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ServerTiming timing = ServerTiming.start();
+        CommitHookResponse timedResponse = new CommitHookResponse(response,
+                () -> response.setHeader(ServerTiming.HEADER, timing.header()));
+        try {
+            filterChain.doFilter(request, timedResponse);
+        } finally {
+            ServerTiming.stop();
+            timedResponse.beforeCommit();
+            if (logRequests && log.isInfoEnabled()) {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                log.info("method={} uri={} status={} {}", request.getMethod(), pattern == null ? "UNKNOWN" : pattern,
+                        response.getStatus(), timing.logFields());
+            }
+        }
+    }
+}
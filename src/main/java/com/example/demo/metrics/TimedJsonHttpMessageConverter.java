@@ -0,0 +1,37 @@
+package com.example.demo.metrics;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The JSON converter, timing serialization for {@link ServerTiming}.
+ *
+ * Bodies are written straight to the response as Jackson produces them,
+ * with no copy in between, so the headers have gone out by the time the
+ * serialize phase is known. Like the counts of the QueryStatsFilter, the
+ * Server-Timing header covers the work done before the body; the serialize
+ * phase reaches the log line only.
+ */
+public class TimedJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    public TimedJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        long start = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            ServerTiming.record(ServerTiming.Phase.SERIALIZE, System.nanoTime() - start);
+        }
+    }
+}
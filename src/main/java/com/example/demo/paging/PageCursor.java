@@ -0,0 +1,34 @@
+package com.example.demo.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor holding the sort key of the last item of a page. Clients must
+ * pass it back unchanged; its content is not part of the API.
+ */
+public final class PageCursor {
+
+    private static final String SEPARATOR = "\n";
+
+    private PageCursor() {
+    }
+
+    public static String encode(String... key) {
+        byte[] raw = String.join(SEPARATOR, key).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    public static String[] decode(String cursor, int parts) {
+        String[] key;
+        try {
+            key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Malformed page cursor", ex);
+        }
+        if (key.length != parts) {
+            throw new IllegalArgumentException("Malformed page cursor");
+        }
+        return key;
+    }
+}
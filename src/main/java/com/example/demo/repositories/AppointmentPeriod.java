@@ -0,0 +1,13 @@
+package com.example.demo.repositories;
+
+import java.time.LocalDateTime;
+
+/**
+ * Closed projection of an appointment holding only the columns needed to
+ * rebuild a schedule timeline, so loading one selects two columns and builds
+ * no entity, proxy or persistence-context entry for the row.
+ */
+public interface AppointmentPeriod {
+    LocalDateTime getStartsAt();
+    LocalDateTime getFinishesAt();
+}
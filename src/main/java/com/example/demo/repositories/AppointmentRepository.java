@@ -1,14 +1,78 @@
-
 package com.example.demo.repositories;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.QueryHint;
 
 import com.example.demo.entities.Appointment;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+public interface AppointmentRepository extends JpaRepository<Appointment, Long>, AppointmentRepositoryCustom {
+    // One joined select instead of one per distinct patient, doctor and room,
+    // loaded read-only so no dirty-checking snapshots are kept.
+    @EntityGraph(attributePaths = { "patient", "doctor", "room" })
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"))
     List<Appointment> findAll();
+
+    // Same for the single appointment, which is serialized right away.
+    @EntityGraph(attributePaths = { "patient", "doctor", "room" })
+    Optional<Appointment> findById(Long id);
+    List<AppointmentPeriod> findByRoomRoomName(String roomName);
+    List<AppointmentPeriod> findByRoomRoomNameAndFinishesAtAfter(String roomName, LocalDateTime after);
+    List<AppointmentPeriod> findByDoctorId(long doctorId);
+    List<AppointmentPeriod> findByDoctorIdAndFinishesAtAfter(long doctorId, LocalDateTime after);
+    List<AppointmentPeriod> findByPatientId(long patientId);
+    List<AppointmentPeriod> findByPatientIdAndFinishesAtAfter(long patientId, LocalDateTime after);
     Appointment save(Appointment appointment);
+
+    // Keyset pages in (startsAt, id) order, served by the (starts_at, id) index.
+    // Appointments without a start come first, by id: MySQL and H2 both sort
+    // NULL lowest, and an explicit NULLS FIRST would be emulated on MySQL with
+    // a CASE that the index can't serve.
+    @EntityGraph(attributePaths = { "patient", "doctor", "room" })
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"))
+    @Query("select a from Appointment a where (a.startsAt is null and a.id > :id) or a.startsAt is not null order by a.startsAt, a.id")
+    List<Appointment> findPageAfterUnscheduled(long id, Pageable pageable);
+
+    @EntityGraph(attributePaths = { "patient", "doctor", "room" })
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"))
+    @Query("select a from Appointment a where a.startsAt > :startsAt or (a.startsAt = :startsAt and a.id > :id) order by a.startsAt, a.id")
+    List<Appointment> findPageAfter(LocalDateTime startsAt, long id, Pageable pageable);
+
     void delete(Appointment appointment);
+
+    // One DELETE statement; the room, doctor and patient slot rows go with it
+    // through their ON DELETE CASCADE foreign keys.
+    @Transactional
+    @Modifying
+    @Query("delete from Appointment x where x.id = :id")
+    int deleteInBulkById(long id);
+
+    // Derived exists queries stop at the first matching row, which the
+    // (room_id | doctor_id | patient_id, starts_at, finishes_at) indexes on
+    // Appointment find directly.
+    boolean existsByRoomRoomNameAndStartsAtBeforeAndFinishesAtAfter(String roomName, LocalDateTime finishesAt, LocalDateTime startsAt);
+    boolean existsByDoctorIdAndStartsAtBeforeAndFinishesAtAfter(long doctorId, LocalDateTime finishesAt, LocalDateTime startsAt);
+    boolean existsByPatientIdAndStartsAtBeforeAndFinishesAtAfter(long patientId, LocalDateTime finishesAt, LocalDateTime startsAt);
+
+    default boolean existsOverlap(String roomName, LocalDateTime startsAt, LocalDateTime finishesAt) {
+        return existsByRoomRoomNameAndStartsAtBeforeAndFinishesAtAfter(roomName, finishesAt, startsAt);
+    }
+
+    default boolean existsDoctorOverlap(long doctorId, LocalDateTime startsAt, LocalDateTime finishesAt) {
+        return existsByDoctorIdAndStartsAtBeforeAndFinishesAtAfter(doctorId, finishesAt, startsAt);
+    }
+
+    default boolean existsPatientOverlap(long patientId, LocalDateTime startsAt, LocalDateTime finishesAt) {
+        return existsByPatientIdAndStartsAtBeforeAndFinishesAtAfter(patientId, finishesAt, startsAt);
+    }
 }
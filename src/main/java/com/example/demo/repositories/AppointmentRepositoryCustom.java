@@ -0,0 +1,47 @@
+package com.example.demo.repositories;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.example.demo.entities.Appointment;
+
+public interface AppointmentRepositoryCustom {
+
+    /**
+     * Inserts the appointment and claims its room, doctor and patient slots
+     * in one transaction.
+     *
+     * @throws com.example.demo.scheduling.SlotConflictException if any slot is
+     *         already held, in which case nothing is written
+     */
+    Appointment book(Appointment appointment);
+
+    /**
+     * Inserts all the appointments and claims their room, doctor and patient
+     * slots in one transaction, using JDBC batches for all of them.
+     *
+     * @throws com.example.demo.scheduling.SlotConflictException if any slot is
+     *         already held, in which case nothing is written
+     */
+    List<Appointment> bookAll(List<Appointment> appointments);
+
+    /**
+     * Like {@link #book}, but binds the patient, doctor and room by their keys
+     * alone, without loading or creating them, so the appointment costs one
+     * INSERT plus its slots.
+     *
+     * @throws com.example.demo.scheduling.SlotConflictException if any slot is
+     *         already held
+     * @throws org.springframework.dao.DataIntegrityViolationException if the
+     *         patient, doctor or room does not exist
+     */
+    Appointment bookByReference(Appointment appointment);
+
+    /**
+     * Hands every appointment, with its patient, doctor and room, to the
+     * consumer one row at a time through a forward-only cursor. Each one is
+     * detached right after the consumer returns, so memory use does not grow
+     * with the number of rows.
+     */
+    void streamAll(Consumer<Appointment> consumer);
+}
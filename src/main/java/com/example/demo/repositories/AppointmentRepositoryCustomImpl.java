@@ -0,0 +1,219 @@
+package com.example.demo.repositories;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.entities.Appointment;
+import com.example.demo.entities.Doctor;
+import com.example.demo.entities.Patient;
+import com.example.demo.entities.Room;
+import com.example.demo.scheduling.ScheduleResource;
+import com.example.demo.scheduling.SlotConflictException;
+
+public class AppointmentRepositoryCustomImpl implements AppointmentRepositoryCustom {
+
+    private static final String INSERT_ROOM_SLOT =
+            "insert into room_slot (room_id, slot_start, appointment_id) values (?, ?, ?)";
+    private static final String INSERT_DOCTOR_SLOT =
+            "insert into doctor_slot (doctor_id, slot_start, appointment_id) values (?, ?, ?)";
+    private static final String INSERT_PATIENT_SLOT =
+            "insert into patient_slot (patient_id, slot_start, appointment_id) values (?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${booking.slot-minutes:5}")
+    private int slotMinutes;
+
+    @Value("${booking.max-minutes:1440}")
+    private long maxAppointmentMinutes;
+
+    // Rows the driver fetches per round trip while streaming. Connector/J
+    // ignores it unless the URL sets useCursorFetch=true, as
+    // application.properties does.
+    @Value("${api.stream.fetch-size:500}")
+    private int streamFetchSize;
+
+    @Override
+    @Transactional
+    public Appointment book(Appointment appointment) {
+        bookAll(Collections.singletonList(appointment));
+        return appointment;
+    }
+
+    @Override
+    @Transactional
+    public List<Appointment> bookAll(List<Appointment> appointments) {
+        return insertAll(appointments, this::attachReferences);
+    }
+
+    @Override
+    @Transactional
+    public Appointment bookByReference(Appointment appointment) {
+        insertAll(Collections.singletonList(appointment), this::bindReferences);
+        return appointment;
+    }
+
+    private List<Appointment> insertAll(List<Appointment> appointments, Consumer<Appointment> binder) {
+        for (Appointment appointment : appointments) {
+            binder.accept(appointment);
+            entityManager.persist(appointment);
+        }
+        // The slot rows reference the appointments, so their INSERTs have to
+        // reach the database before the batch below.
+        entityManager.flush();
+
+        List<Object[]> roomSlots = new ArrayList<>();
+        List<Object[]> doctorSlots = new ArrayList<>();
+        List<Object[]> patientSlots = new ArrayList<>();
+        for (Appointment appointment : appointments) {
+            for (LocalDateTime slot : slotsOf(appointment)) {
+                Timestamp slotStart = Timestamp.valueOf(slot);
+                roomSlots.add(new Object[] { appointment.getRoom().getRoomName(), slotStart, appointment.getId() });
+                if (appointment.getDoctor() != null) {
+                    doctorSlots.add(new Object[] { appointment.getDoctor().getId(), slotStart, appointment.getId() });
+                }
+                if (appointment.getPatient() != null) {
+                    patientSlots.add(new Object[] { appointment.getPatient().getId(), slotStart, appointment.getId() });
+                }
+            }
+        }
+
+        claim(INSERT_ROOM_SLOT, roomSlots, ScheduleResource.ROOM, appointments,
+                appointment -> appointment.getRoom().getRoomName());
+        claim(INSERT_DOCTOR_SLOT, doctorSlots, ScheduleResource.DOCTOR, appointments,
+                appointment -> appointment.getDoctor() == null ? null : String.valueOf(appointment.getDoctor().getId()));
+        claim(INSERT_PATIENT_SLOT, patientSlots, ScheduleResource.PATIENT, appointments,
+                appointment -> appointment.getPatient() == null ? null : String.valueOf(appointment.getPatient().getId()));
+        return appointments;
+    }
+
+    private void claim(String insert, List<Object[]> slots, ScheduleResource resource, List<Appointment> appointments,
+            Function<Appointment, String> id) {
+        if (slots.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(insert, slots);
+        } catch (DuplicateKeyException ex) {
+            throw new SlotConflictException(resource, appointments.stream()
+                    .map(id)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .collect(Collectors.joining(", ")), ex);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Appointment> consumer) {
+        TypedQuery<Appointment> query = entityManager.createQuery(
+                "select a from Appointment a left join fetch a.patient left join fetch a.doctor left join fetch a.room order by a.id",
+                Appointment.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, streamFetchSize)
+                .setHint(QueryHints.HINT_READONLY, true);
+
+        try (Stream<Appointment> rows = query.getResultStream()) {
+            rows.forEach(appointment -> {
+                consumer.accept(appointment);
+                detach(appointment);
+            });
+        }
+    }
+
+    private void detach(Appointment appointment) {
+        entityManager.detach(appointment);
+        if (appointment.getPatient() != null) {
+            entityManager.detach(appointment.getPatient());
+        }
+        if (appointment.getDoctor() != null) {
+            entityManager.detach(appointment.getDoctor());
+        }
+        if (appointment.getRoom() != null) {
+            entityManager.detach(appointment.getRoom());
+        }
+    }
+
+    /**
+     * Binds the embedded entities of a legacy payload. Rooms are looked up
+     * once per persistence context and created if missing; doctors and
+     * patients with an id become references and are not loaded at all, while
+     * those without one are inserted as new rows.
+     */
+    private void attachReferences(Appointment appointment) {
+        Room room = entityManager.find(Room.class, appointment.getRoom().getRoomName());
+        if (room != null) {
+            appointment.setRoom(room);
+        } else {
+            entityManager.persist(appointment.getRoom());
+        }
+        if (appointment.getDoctor() != null) {
+            if (appointment.getDoctor().getId() != 0) {
+                appointment.setDoctor(entityManager.getReference(Doctor.class, appointment.getDoctor().getId()));
+            } else {
+                entityManager.persist(appointment.getDoctor());
+            }
+        }
+        if (appointment.getPatient() != null) {
+            if (appointment.getPatient().getId() != 0) {
+                appointment.setPatient(entityManager.getReference(Patient.class, appointment.getPatient().getId()));
+            } else {
+                entityManager.persist(appointment.getPatient());
+            }
+        }
+    }
+
+    private void bindReferences(Appointment appointment) {
+        appointment.setRoom(entityManager.getReference(Room.class, appointment.getRoom().getRoomName()));
+        appointment.setDoctor(entityManager.getReference(Doctor.class, appointment.getDoctor().getId()));
+        if (appointment.getPatient() != null) {
+            appointment.setPatient(entityManager.getReference(Patient.class, appointment.getPatient().getId()));
+        }
+    }
+
+    /**
+     * Every slot touched by [startsAt, finishesAt), rounded outwards to the
+     * slot length, so bookings are effectively made at slot granularity.
+     */
+    private List<LocalDateTime> slotsOf(Appointment appointment) {
+        // The controllers reject these up front; this keeps any other caller
+        // from claiming an unbounded number of slot rows.
+        if (appointment.getStartsAt().plusMinutes(maxAppointmentMinutes).isBefore(appointment.getFinishesAt())) {
+            throw new IllegalArgumentException("Appointment longer than " + maxAppointmentMinutes + " minutes: "
+                    + appointment.getStartsAt() + " - " + appointment.getFinishesAt());
+        }
+        LocalDateTime startOfDay = appointment.getStartsAt().truncatedTo(ChronoUnit.DAYS);
+        long first = ChronoUnit.MINUTES.between(startOfDay, appointment.getStartsAt()) / slotMinutes;
+        LocalDateTime slot = startOfDay.plusMinutes(first * slotMinutes);
+
+        List<LocalDateTime> slots = new ArrayList<>();
+        while (slot.isBefore(appointment.getFinishesAt())) {
+            slots.add(slot);
+            slot = slot.plusMinutes(slotMinutes);
+        }
+        return slots;
+    }
+}
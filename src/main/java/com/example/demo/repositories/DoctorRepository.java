@@ -2,12 +2,31 @@ package com.example.demo.repositories;
 
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
 import com.example.demo.entities.Doctor;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
+    // Listings are never modified, so they are loaded without the snapshots
+    // Hibernate keeps for dirty checking. Flushing is left to the caller's
+    // transaction; the read-only ones of the services run with FlushMode.MANUAL.
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"))
     List<Doctor> findAll();
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"))
+    List<Doctor> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
     Doctor save(Doctor doc);
     void delete(Doctor doc);
+
+    // One DELETE statement; the count tells whether the row existed.
+    @Transactional
+    @Modifying
+    @Query("delete from Doctor x where x.id = :id")
+    int deleteInBulkById(long id);
 }
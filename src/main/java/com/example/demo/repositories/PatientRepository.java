@@ -3,12 +3,29 @@ package com.example.demo.repositories;
 
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
 import com.example.demo.entities.Patient;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface PatientRepository extends JpaRepository<Patient, Long> {
+    // Read-only listings, as in DoctorRepository.
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"))
     List<Patient> findAll();
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"))
+    List<Patient> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
     Patient save(Patient doc);
     void delete(Patient doc);
+
+    // One DELETE statement; the count tells whether the row existed.
+    @Transactional
+    @Modifying
+    @Query("delete from Patient x where x.id = :id")
+    int deleteInBulkById(long id);
 }
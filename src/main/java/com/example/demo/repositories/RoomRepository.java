@@ -1,17 +1,48 @@
 
 package com.example.demo.repositories;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
 import com.example.demo.entities.Room;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface RoomRepository extends JpaRepository<Room, Long> {
+    // Read-only listings, as in DoctorRepository.
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"))
     List<Room> findAll();
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"))
+    List<Room> findByRoomNameGreaterThanOrderByRoomNameAsc(String roomName, Pageable pageable);
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
     Optional<Room> findByRoomName(String roomName);
+
+    // Names only, from the query cache while the room table is unchanged.
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    @Query("select r.roomName from Room r order by r.roomName")
+    List<String> findAllRoomNames();
+
+    // One statement for every room, each probe served by the (room_id,
+    // starts_at, finishes_at) index on Appointment. Rows that do not end after
+    // they start occupy nothing, as in the in-memory timelines.
+    @Query("select r.roomName from Room r where not exists (select a.id from Appointment a where a.room = r"
+            + " and a.startsAt < :to and a.finishesAt > :from and a.startsAt < a.finishesAt) order by r.roomName")
+    List<String> findRoomNamesFreeBetween(LocalDateTime from, LocalDateTime to);
     Room save(Room room);
     void delete(Room room);
     void deleteByRoomName(String roomName);
+
+    // One DELETE statement; the count tells whether the row existed.
+    @Transactional
+    @Modifying
+    @Query("delete from Room x where x.roomName = :roomName")
+    int deleteInBulkByRoomName(String roomName);
 }
@@ -0,0 +1,487 @@
+package com.example.demo.scheduling;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.entities.Appointment;
+import com.example.demo.jfr.OverlapCheckEvent;
+import com.example.demo.metrics.ServerTiming;
+import com.example.demo.repositories.AppointmentPeriod;
+import com.example.demo.repositories.AppointmentRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * In-memory interval index of booked appointments, with one timeline per
+ * room, per doctor and per patient.
+ *
+ * A timeline is loaded from the database the first time its resource is
+ * checked, and is then kept in sync on every committed save and delete. A
+ * booking check touches at most three timelines and costs O(log n) in the
+ * number of appointments of each resource.
+ *
+ * Between reloads the timelines only know about the bookings made through
+ * this instance and the rows that existed when they were loaded. Bookings
+ * that another instance made since are caught by the room_slot,
+ * doctor_slot and patient_slot keys when the appointment is written.
+ *
+ * Timelines only hold the appointments that finish after the start of the
+ * day booking.index.history-days ago (all of them when it is negative). A
+ * check for a period that starts earlier goes to the database instead,
+ * through the indexed exists queries of {@link AppointmentRepository}, and
+ * free windows are only searched from that day on. At each local midnight
+ * the window moves on and every loaded timeline is dropped, so the index
+ * never holds more than the window's appointments of the resources checked
+ * since.
+ *
+ * Doctors and patients that have not been persisted yet (id 0) cannot have
+ * other appointments and are not indexed. A room name is interned into a
+ * dense int id once its timeline turns out to hold appointments, which
+ * only a room can have, and room timelines are then found by array index.
+ * A name with nothing booked is checked against a timeline that is loaded
+ * for the check and then dropped.
+ *
+ * Every period enters the index rounded outwards to booking.slot-minutes,
+ * the granularity at which the slot keys claim rooms, doctors and patients. Two bookings that
+ * share a slot therefore conflict here just as they would in the database,
+ * and every free window found here can actually be booked.
+ *
+ * Room timelines also keep a per-day occupancy bitmap with cells of
+ * booking.occupancy.minutes-per-cell minutes, so the room checks behind
+ * bookings and free-room searches are mostly word-level bit tests.
+ *
+ * A check that finds no conflict allocates nothing: timelines are found by
+ * primitive id, the check itself yields a resource code, and the
+ * BookingConflict and the Flight Recorder event are only created when
+ * there is a conflict to report or a recording that wants the event.
+ *
+ * Every conflict check is timed into booking.overlap.check, tagged with the
+ * resource that conflicted or "none", and booking.overlap.check.last gauges
+ * the duration of the most recent one. Each check also counts towards the
+ * overlap phase of the request's Server-Timing header, and is recorded as
+ * an OverlapCheckEvent when Flight Recorder is running.
+ */
+@Component
+public class AppointmentIndex {
+
+    // Result codes of a check: NO_CONFLICT, or 1 + the ordinal of the
+    // ScheduleResource that is already booked.
+    private static final int NO_CONFLICT = 0;
+    private static final ScheduleResource[] RESOURCES = ScheduleResource.values();
+    private static final int TIMELINE_STRIPES = 64;
+
+    private final AppointmentRepository appointmentRepository;
+    private final int slotMinutes;
+    private final int minutesPerCell;
+    private final int historyDays;
+    private final Clock clock;
+
+    // First minute the timelines hold, moved on at each local midnight.
+    private volatile long windowStart = Long.MIN_VALUE;
+    private volatile long windowMovesAtMillis = Long.MIN_VALUE;
+
+    private final ConcurrentMap<String, Integer> roomIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextRoomId = new AtomicInteger();
+    // Copy-on-write, indexed by room id; a slot stays null until first use.
+    private volatile RoomTimeline[] rooms = new RoomTimeline[0];
+    // By doctor or patient id; a new id only locks its own stripe.
+    private final ConcurrentLongMap<Timeline> doctors = new ConcurrentLongMap<>(TIMELINE_STRIPES);
+    private final ConcurrentLongMap<Timeline> patients = new ConcurrentLongMap<>(TIMELINE_STRIPES);
+
+    // Indexed by result code.
+    private final Timer[] checkTimers = new Timer[RESOURCES.length + 1];
+    private final AtomicLong lastCheckNanos = new AtomicLong();
+
+    // Slices such as @WebMvcTest have no meter registry; the checks are then
+    // timed into one nobody reads.
+    @Autowired
+    public AppointmentIndex(AppointmentRepository appointmentRepository,
+            @Value("${booking.slot-minutes:5}") int slotMinutes,
+            @Value("${booking.occupancy.minutes-per-cell:5}") int minutesPerCell,
+            @Value("${booking.index.history-days:30}") int historyDays,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this(appointmentRepository, slotMinutes, minutesPerCell, historyDays,
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    public AppointmentIndex(AppointmentRepository appointmentRepository, int slotMinutes, int minutesPerCell,
+            int historyDays, MeterRegistry meterRegistry) {
+        this(appointmentRepository, slotMinutes, minutesPerCell, historyDays, meterRegistry, Clock.systemDefaultZone());
+    }
+
+    public AppointmentIndex(AppointmentRepository appointmentRepository, int slotMinutes, int minutesPerCell,
+            int historyDays, MeterRegistry meterRegistry, Clock clock) {
+        if (slotMinutes < 1 || RoomTimeline.MINUTES_PER_DAY % slotMinutes != 0) {
+            throw new IllegalArgumentException("Slot length must divide a day: " + slotMinutes);
+        }
+        this.appointmentRepository = appointmentRepository;
+        this.slotMinutes = slotMinutes;
+        this.minutesPerCell = RoomTimeline.checkCellLength(minutesPerCell);
+        this.historyDays = historyDays;
+        this.clock = clock;
+        checkTimers[NO_CONFLICT] = checkTimer(meterRegistry, "none");
+        for (ScheduleResource resource : RESOURCES) {
+            checkTimers[resource.ordinal() + 1] = checkTimer(meterRegistry, resource.name().toLowerCase());
+        }
+        TimeGauge.builder("booking.overlap.check.last", lastCheckNanos, TimeUnit.NANOSECONDS, AtomicLong::doubleValue)
+                .description("Duration of the most recent booking conflict check")
+                .register(meterRegistry);
+    }
+
+    public AppointmentIndex(AppointmentRepository appointmentRepository) {
+        this(appointmentRepository, 5, 5, -1, new SimpleMeterRegistry());
+    }
+
+    private static Timer checkTimer(MeterRegistry meterRegistry, String conflict) {
+        return Timer.builder("booking.overlap.check")
+                .description("Booking conflict checks against the index")
+                .tag("conflict", conflict)
+                .register(meterRegistry);
+    }
+
+    public static long doctorId(Appointment appointment) {
+        return appointment.getDoctor() == null ? 0 : appointment.getDoctor().getId();
+    }
+
+    public static long patientId(Appointment appointment) {
+        return appointment.getPatient() == null ? 0 : appointment.getPatient().getId();
+    }
+
+    /**
+     * The first minute of the slot the given time falls in.
+     */
+    public long slotStart(LocalDateTime time) {
+        return EpochMinutes.floor(time, slotMinutes);
+    }
+
+    /**
+     * The end of the last slot the given time reaches into.
+     */
+    public long slotEnd(LocalDateTime time) {
+        return EpochMinutes.ceil(time, slotMinutes);
+    }
+
+    /**
+     * The first minute the timelines hold: the start of the day
+     * booking.index.history-days ago, or Long.MIN_VALUE if they hold
+     * everything.
+     */
+    public long windowStart() {
+        if (historyDays < 0) {
+            return Long.MIN_VALUE;
+        }
+        if (clock.millis() >= windowMovesAtMillis) {
+            moveWindow();
+        }
+        return windowStart;
+    }
+
+    // The timelines loaded from the old window start are dropped rather than
+    // trimmed; each is reloaded from the new one the next time it is needed.
+    private synchronized void moveWindow() {
+        if (clock.millis() < windowMovesAtMillis) {
+            return;
+        }
+        ZoneId zone = clock.getZone();
+        ZonedDateTime today = LocalDate.now(clock).atStartOfDay(zone);
+        long moved = EpochMinutes.floor(today.toLocalDateTime().minusDays(historyDays));
+        boolean loaded = windowStart != Long.MIN_VALUE;
+        windowStart = moved;
+        windowMovesAtMillis = today.plusDays(1).toInstant().toEpochMilli();
+        if (loaded) {
+            clear();
+        }
+    }
+
+    /**
+     * The first resource, checked in room, doctor, patient order, that is
+     * already booked for part of the appointment's period.
+     */
+    public Optional<BookingConflict> conflictOf(Appointment appointment) {
+        int conflict = check(appointment);
+        return conflict == NO_CONFLICT ? Optional.empty() : Optional.of(bookingConflict(appointment, conflict));
+    }
+
+    public boolean hasOverlap(Appointment appointment) {
+        return check(appointment) != NO_CONFLICT;
+    }
+
+    private int check(Appointment appointment) {
+        OverlapCheckEvent event = OverlapCheckEvent.isRecorded()
+                ? OverlapCheckEvent.begin(appointment.getRoom().getRoomName())
+                : null;
+        long start = System.nanoTime();
+        int conflict = findConflict(appointment);
+        long nanos = System.nanoTime() - start;
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.commit(candidates(appointment), conflict == NO_CONFLICT ? "NONE" : RESOURCES[conflict - 1].name());
+            }
+        }
+        lastCheckNanos.set(nanos);
+        ServerTiming.record(ServerTiming.Phase.OVERLAP, nanos);
+        checkTimers[conflict].record(nanos, TimeUnit.NANOSECONDS);
+        return conflict;
+    }
+
+    private static BookingConflict bookingConflict(Appointment appointment, int conflict) {
+        ScheduleResource resource = RESOURCES[conflict - 1];
+        switch (resource) {
+        case ROOM:
+            return new BookingConflict(resource, appointment.getRoom().getRoomName());
+        case DOCTOR:
+            return new BookingConflict(resource, String.valueOf(doctorId(appointment)));
+        default:
+            return new BookingConflict(resource, String.valueOf(patientId(appointment)));
+        }
+    }
+
+    // Intervals on the appointment's timelines, counting only those already loaded.
+    private int candidates(Appointment appointment) {
+        return size(loadedRoomTimeline(appointment.getRoom().getRoomName()))
+                + size(doctors.get(doctorId(appointment)))
+                + size(patients.get(patientId(appointment)));
+    }
+
+    private static int size(Timeline timeline) {
+        return timeline == null ? 0 : timeline.size();
+    }
+
+    private int findConflict(Appointment appointment) {
+        long startsAt = slotStart(appointment.getStartsAt());
+        long finishesAt = slotEnd(appointment.getFinishesAt());
+        if (roomOverlaps(appointment.getRoom().getRoomName(), startsAt, finishesAt)) {
+            return ScheduleResource.ROOM.ordinal() + 1;
+        }
+        long doctorId = doctorId(appointment);
+        if (doctorId != 0 && doctorOverlaps(doctorId, startsAt, finishesAt)) {
+            return ScheduleResource.DOCTOR.ordinal() + 1;
+        }
+        long patientId = patientId(appointment);
+        if (patientId != 0 && patientOverlaps(patientId, startsAt, finishesAt)) {
+            return ScheduleResource.PATIENT.ordinal() + 1;
+        }
+        return NO_CONFLICT;
+    }
+
+    // Periods that start before the window are checked in the database. The
+    // bounds are whole slots, which makes the query agree with the rounded
+    // intervals of the timelines.
+    private boolean roomOverlaps(String roomName, long startsAt, long finishesAt) {
+        if (startsAt < windowStart()) {
+            return appointmentRepository.existsOverlap(roomName,
+                    EpochMinutes.toDateTime(startsAt), EpochMinutes.toDateTime(finishesAt));
+        }
+        return roomTimeline(roomName).overlaps(startsAt, finishesAt);
+    }
+
+    private boolean doctorOverlaps(long doctorId, long startsAt, long finishesAt) {
+        if (startsAt < windowStart()) {
+            return appointmentRepository.existsDoctorOverlap(doctorId,
+                    EpochMinutes.toDateTime(startsAt), EpochMinutes.toDateTime(finishesAt));
+        }
+        return doctorTimeline(doctorId).overlaps(startsAt, finishesAt);
+    }
+
+    private boolean patientOverlaps(long patientId, long startsAt, long finishesAt) {
+        if (startsAt < windowStart()) {
+            return appointmentRepository.existsPatientOverlap(patientId,
+                    EpochMinutes.toDateTime(startsAt), EpochMinutes.toDateTime(finishesAt));
+        }
+        return patientTimeline(patientId).overlaps(startsAt, finishesAt);
+    }
+
+    /**
+     * Free windows of the room between from and to, searched no earlier than
+     * {@link #windowStart()}.
+     */
+    public List<TimeWindow> roomFreeWindows(String roomName, LocalDateTime from, LocalDateTime to,
+            Duration length, int limit) {
+        LocalDateTime searchFrom = searchFrom(from);
+        return searchFrom.isBefore(to)
+                ? roomTimeline(roomName).freeWindows(searchFrom, to, length, limit)
+                : Collections.emptyList();
+    }
+
+    /**
+     * Free windows of the doctor between from and to, searched no earlier
+     * than {@link #windowStart()}.
+     */
+    public List<TimeWindow> doctorFreeWindows(long doctorId, LocalDateTime from, LocalDateTime to,
+            Duration length, int limit) {
+        LocalDateTime searchFrom = searchFrom(from);
+        return searchFrom.isBefore(to)
+                ? doctorTimeline(doctorId).freeWindows(searchFrom, to, length, limit)
+                : Collections.emptyList();
+    }
+
+    private LocalDateTime searchFrom(LocalDateTime from) {
+        long windowStart = windowStart();
+        return slotStart(from) < windowStart ? EpochMinutes.toDateTime(windowStart) : from;
+    }
+
+    public boolean isRoomFree(String roomName, LocalDateTime from, LocalDateTime to) {
+        return !roomOverlaps(roomName, slotStart(from), slotEnd(to));
+    }
+
+    /**
+     * Records a committed booking in the timelines that are already loaded.
+     * A timeline that is not loaded yet reads the booking from the database
+     * when it is, so adding it there as well would count it twice; that is
+     * the case of a doctor or patient created along with the appointment,
+     * who had no id, and so no timeline, when the booking was checked.
+     *
+     * @throws IllegalArgumentException if the appointment does not end after
+     *         it starts
+     */
+    public void add(Appointment appointment) {
+        long startsAt = slotStart(appointment.getStartsAt());
+        long finishesAt = slotEnd(appointment.getFinishesAt());
+        if (finishesAt <= startsAt) {
+            throw new IllegalArgumentException("Appointment must end after it starts: " + appointment.getStartsAt()
+                    + " - " + appointment.getFinishesAt());
+        }
+        add(loadedRoomTimeline(appointment.getRoom().getRoomName()), startsAt, finishesAt);
+        add(doctors.get(doctorId(appointment)), startsAt, finishesAt);
+        add(patients.get(patientId(appointment)), startsAt, finishesAt);
+    }
+
+    private static void add(Timeline timeline, long startsAt, long finishesAt) {
+        if (timeline != null) {
+            timeline.add(startsAt, finishesAt);
+        }
+    }
+
+    public void remove(Appointment appointment) {
+        if (appointment.getStartsAt() == null || appointment.getFinishesAt() == null) {
+            return;
+        }
+        if (appointment.getRoom() != null) {
+            remove(loadedRoomTimeline(appointment.getRoom().getRoomName()), appointment);
+        }
+        remove(doctors.get(doctorId(appointment)), appointment);
+        remove(patients.get(patientId(appointment)), appointment);
+    }
+
+    public void clear() {
+        synchronized (roomIds) {
+            rooms = new RoomTimeline[0];
+        }
+        doctors.clear();
+        patients.clear();
+    }
+
+    private void remove(Timeline timeline, Appointment appointment) {
+        if (timeline != null) {
+            timeline.remove(slotStart(appointment.getStartsAt()), slotEnd(appointment.getFinishesAt()));
+        }
+    }
+
+    // The room's timeline if it is loaded, without interning the name.
+    private RoomTimeline loadedRoomTimeline(String roomName) {
+        Integer roomId = roomIds.get(roomName);
+        RoomTimeline[] loaded = rooms;
+        return roomId != null && roomId < loaded.length ? loaded[roomId] : null;
+    }
+
+    private Timeline roomTimeline(String roomName) {
+        RoomTimeline loaded = loadedRoomTimeline(roomName);
+        if (loaded != null) {
+            return loaded;
+        }
+
+        // Same race rule as the other timelines: load outside the lock, first
+        // one published wins. A name is only interned once it has appointments.
+        RoomTimeline timeline = new RoomTimeline(minutesPerCell);
+        LocalDateTime loadFrom = loadFrom();
+        load(timeline, loadFrom == null
+                ? appointmentRepository.findByRoomRoomName(roomName)
+                : appointmentRepository.findByRoomRoomNameAndFinishesAtAfter(roomName, loadFrom));
+        if (timeline.size() == 0) {
+            return timeline;
+        }
+        synchronized (roomIds) {
+            int roomId = roomIds.computeIfAbsent(roomName, name -> nextRoomId.getAndIncrement());
+            RoomTimeline[] current = rooms;
+            if (roomId < current.length && current[roomId] != null) {
+                return current[roomId];
+            }
+            RoomTimeline[] published = Arrays.copyOf(current, Math.max(current.length, roomId + 1));
+            published[roomId] = timeline;
+            rooms = published;
+        }
+        return timeline;
+    }
+
+    // Where timelines are loaded from, or null to load everything.
+    private LocalDateTime loadFrom() {
+        long windowStart = windowStart();
+        return windowStart == Long.MIN_VALUE ? null : EpochMinutes.toDateTime(windowStart);
+    }
+
+    private Timeline doctorTimeline(long doctorId) {
+        Timeline timeline = doctors.get(doctorId);
+        if (timeline != null) {
+            return timeline;
+        }
+        // Load outside the lock so a slow query never blocks other resources; if
+        // two threads race, the first timeline published wins and the other is dropped.
+        Timeline loaded = new Timeline();
+        LocalDateTime loadFrom = loadFrom();
+        load(loaded, loadFrom == null
+                ? appointmentRepository.findByDoctorId(doctorId)
+                : appointmentRepository.findByDoctorIdAndFinishesAtAfter(doctorId, loadFrom));
+        return doctors.putIfAbsent(doctorId, loaded);
+    }
+
+    private Timeline patientTimeline(long patientId) {
+        Timeline timeline = patients.get(patientId);
+        if (timeline != null) {
+            return timeline;
+        }
+        Timeline loaded = new Timeline();
+        LocalDateTime loadFrom = loadFrom();
+        load(loaded, loadFrom == null
+                ? appointmentRepository.findByPatientId(patientId)
+                : appointmentRepository.findByPatientIdAndFinishesAtAfter(patientId, loadFrom));
+        return patients.putIfAbsent(patientId, loaded);
+    }
+
+    // Rows may overlap each other, which the timelines allow; a row with no
+    // period, or one that does not end after it starts, occupies nothing and
+    // is skipped.
+    private void load(Timeline timeline, List<AppointmentPeriod> periods) {
+        for (AppointmentPeriod period : periods) {
+            if (period.getStartsAt() == null || period.getFinishesAt() == null) {
+                continue;
+            }
+            long startsAt = slotStart(period.getStartsAt());
+            long finishesAt = slotEnd(period.getFinishesAt());
+            if (startsAt < finishesAt) {
+                timeline.add(startsAt, finishesAt);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.scheduling;
+
+import java.time.LocalDateTime;
+
+import com.example.demo.entities.Appointment;
+import com.example.demo.entities.Doctor;
+import com.example.demo.entities.Patient;
+import com.example.demo.entities.Room;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+/**
+ * Request body of a booking that names its patient, doctor and room by key
+ * instead of embedding them. The patient is optional.
+ */
+public class AppointmentRequest {
+
+    private Long patientId;
+    private Long doctorId;
+    private String roomName;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "HH:mm dd/MM/yyyy")
+    private LocalDateTime startsAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "HH:mm dd/MM/yyyy")
+    private LocalDateTime finishesAt;
+
+    public AppointmentRequest() {
+        super();
+    }
+
+    public AppointmentRequest(Long patientId, Long doctorId, String roomName,
+            LocalDateTime startsAt, LocalDateTime finishesAt) {
+        this.patientId = patientId;
+        this.doctorId = doctorId;
+        this.roomName = roomName;
+        this.startsAt = startsAt;
+        this.finishesAt = finishesAt;
+    }
+
+    public Long getPatientId() {
+        return this.patientId;
+    }
+
+    public void setPatientId(Long patientId) {
+        this.patientId = patientId;
+    }
+
+    public Long getDoctorId() {
+        return this.doctorId;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public String getRoomName() {
+        return this.roomName;
+    }
+
+    public void setRoomName(String roomName) {
+        this.roomName = roomName;
+    }
+
+    public LocalDateTime getStartsAt() {
+        return this.startsAt;
+    }
+
+    public void setStartsAt(LocalDateTime startsAt) {
+        this.startsAt = startsAt;
+    }
+
+    public LocalDateTime getFinishesAt() {
+        return this.finishesAt;
+    }
+
+    public void setFinishesAt(LocalDateTime finishesAt) {
+        this.finishesAt = finishesAt;
+    }
+
+    /**
+     * An appointment whose patient, doctor and room carry nothing but their
+     * keys, ready to be bound to references by the repository.
+     */
+    public Appointment toAppointment() {
+        Patient patient = null;
+        if (patientId != null) {
+            patient = new Patient();
+            patient.setId(patientId);
+        }
+        Doctor doctor = new Doctor();
+        doctor.setId(doctorId);
+        return new Appointment(patient, doctor, new Room(roomName), startsAt, finishesAt);
+    }
+}
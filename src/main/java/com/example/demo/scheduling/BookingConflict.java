@@ -0,0 +1,24 @@
+package com.example.demo.scheduling;
+
+/**
+ * Response body of a rejected booking, naming the resource that is already
+ * taken for part of the requested period.
+ */
+public class BookingConflict {
+
+    private final ScheduleResource resource;
+    private final String id;
+
+    public BookingConflict(ScheduleResource resource, String id) {
+        this.resource = resource;
+        this.id = id;
+    }
+
+    public ScheduleResource getResource() {
+        return this.resource;
+    }
+
+    public String getId() {
+        return this.id;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.scheduling;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Outcome of one item of a batch booking. The status is the one the single
+ * booking endpoint would have answered with for that item.
+ */
+public class BookingResult {
+
+    private final int index;
+    private final HttpStatus status;
+    private final Long id;
+    private final BookingConflict conflict;
+
+    private BookingResult(int index, HttpStatus status, Long id, BookingConflict conflict) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.conflict = conflict;
+    }
+
+    public static BookingResult accepted(int index, long id) {
+        return new BookingResult(index, HttpStatus.OK, id, null);
+    }
+
+    public static BookingResult invalid(int index) {
+        return new BookingResult(index, HttpStatus.BAD_REQUEST, null, null);
+    }
+
+    public static BookingResult conflict(int index, BookingConflict conflict) {
+        return new BookingResult(index, HttpStatus.NOT_ACCEPTABLE, null, conflict);
+    }
+
+    public int getIndex() {
+        return this.index;
+    }
+
+    public HttpStatus getStatus() {
+        return this.status;
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public BookingConflict getConflict() {
+        return this.conflict;
+    }
+}
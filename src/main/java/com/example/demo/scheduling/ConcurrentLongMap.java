@@ -0,0 +1,131 @@
+package com.example.demo.scheduling;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Thread-safe map from primitive {@code long} keys to values that, once
+ * added, stay until the whole map is cleared. Lookups neither lock, box the
+ * key nor allocate.
+ *
+ * Keys are spread over lock-striped segments, each an open-addressing table
+ * probed like {@link LongMap}'s. A writer holding its segment's lock stores
+ * the key before publishing the value, and a reader only trusts a key once
+ * it has seen the value next to it. A segment that gets half full is
+ * rehashed into a new table that replaces it in one write, so adding a key
+ * costs amortised O(1) and only waits for writers of the same segment.
+ */
+final class ConcurrentLongMap<V> {
+
+    private final Segment<V>[] segments;
+    private final int segmentShift;
+
+    @SuppressWarnings("unchecked")
+    ConcurrentLongMap(int concurrency) {
+        int count = 1;
+        while (count < concurrency) {
+            count <<= 1;
+        }
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>();
+        }
+        // The segment comes from the top bits of the hash, the slot from the bottom ones.
+        segmentShift = 32 - Integer.numberOfTrailingZeros(count);
+    }
+
+    V get(long key) {
+        int hash = LongMap.hash(key);
+        return segmentOf(hash).get(key, hash);
+    }
+
+    /**
+     * @return the value already mapped to the key, or the given one if there
+     *         was none and it was added
+     */
+    V putIfAbsent(long key, V value) {
+        int hash = LongMap.hash(key);
+        return segmentOf(hash).putIfAbsent(key, hash, value);
+    }
+
+    void clear() {
+        for (Segment<V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private Segment<V> segmentOf(int hash) {
+        return segments[(hash >>> segmentShift) & (segments.length - 1)];
+    }
+
+    private static final class Segment<V> {
+
+        private volatile Table<V> table = new Table<>(8);
+        private int size;
+
+        V get(long key, int hash) {
+            Table<V> current = table;
+            int mask = current.keys.length - 1;
+            for (int i = hash & mask;; i = (i + 1) & mask) {
+                V value = current.values.get(i);
+                if (value == null) {
+                    return null;
+                }
+                if (current.keys[i] == key) {
+                    return value;
+                }
+            }
+        }
+
+        synchronized V putIfAbsent(long key, int hash, V value) {
+            Table<V> current = table;
+            int mask = current.keys.length - 1;
+            int i = hash & mask;
+            for (V existing; (existing = current.values.get(i)) != null; i = (i + 1) & mask) {
+                if (current.keys[i] == key) {
+                    return existing;
+                }
+            }
+            current.keys[i] = key;
+            current.values.set(i, value);
+            if (++size * 2 > current.keys.length) {
+                table = current.rehash(current.keys.length * 2);
+            }
+            return value;
+        }
+
+        synchronized void clear() {
+            table = new Table<>(8);
+            size = 0;
+        }
+    }
+
+    private static final class Table<V> {
+
+        final long[] keys;
+        final AtomicReferenceArray<V> values;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new AtomicReferenceArray<>(capacity);
+        }
+
+        // Only called by the segment's writer; the new table is not shared
+        // until it is published.
+        Table<V> rehash(int capacity) {
+            Table<V> rehashed = new Table<>(capacity);
+            int mask = capacity - 1;
+            for (int j = 0; j < keys.length; j++) {
+                V value = values.get(j);
+                if (value != null) {
+                    int i = LongMap.hash(keys[j]) & mask;
+                    while (rehashed.values.get(i) != null) {
+                        i = (i + 1) & mask;
+                    }
+                    rehashed.keys[i] = keys[j];
+                    rehashed.values.lazySet(i, value);
+                }
+            }
+            return rehashed;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.scheduling;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Appointment times as {@code long} minutes since the epoch, the unit the
+ * timelines work in. Bookings are minute-grained, so nothing is lost; a
+ * time with seconds in it is widened, a start down and an end up, so the
+ * conversion can only ever make an interval cover more.
+ */
+public final class EpochMinutes {
+
+    private EpochMinutes() {
+    }
+
+    public static long floor(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    public static long ceil(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC) + (time.getNano() > 0 ? 1 : 0);
+        return -Math.floorDiv(-seconds, 60);
+    }
+
+    /**
+     * {@link #floor(LocalDateTime)} rounded down to a whole slot. Slots are
+     * counted from the epoch, which for a slot length that divides a day is
+     * the same as counting them from each midnight.
+     */
+    public static long floor(LocalDateTime time, int slotMinutes) {
+        return Math.floorDiv(floor(time), slotMinutes) * slotMinutes;
+    }
+
+    /**
+     * {@link #ceil(LocalDateTime)} rounded up to a whole slot.
+     */
+    public static long ceil(LocalDateTime time, int slotMinutes) {
+        return -Math.floorDiv(-ceil(time), slotMinutes) * slotMinutes;
+    }
+
+    public static LocalDateTime toDateTime(long minutes) {
+        return LocalDateTime.ofEpochSecond(minutes * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Whether half-open intervals [aStart, aEnd) and [bStart, bEnd) share a
+     * minute. Each interval must start before the other one ends, which
+     * covers partial overlap, containment either way and equal intervals
+     * alike; an empty interval shares nothing. Non-short-circuit ands keep
+     * it free of branches.
+     */
+    public static boolean overlaps(long aStart, long aEnd, long bStart, long bEnd) {
+        return aStart < bEnd & bStart < aEnd & aStart < aEnd & bStart < bEnd;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.demo.scheduling;
+
+/**
+ * A room's timeline with an occupancy bitmap on top: one bit per cell of
+ * {@code minutesPerCell} minutes and one {@code long[]} per day that has
+ * bookings, found through a {@link LongMap} so a lookup does not box the
+ * day.
+ *
+ * Bookings mark every cell they touch, rounded outwards, so a clear cell is
+ * certainly free while a set one may only be shared with a neighbour that
+ * ends or starts inside it. Overlap checks therefore test whole words first
+ * and fall back to the exact binary search only when a bit is set.
+ * Removing a booking rebuilds the days it covered from the intervals that
+ * remain, since a cell it shared must stay set.
+ */
+public class RoomTimeline extends Timeline {
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final int minutesPerCell;
+    private final int cellsPerDay;
+    private final int wordsPerDay;
+    private final LongMap<long[]> days = new LongMap<>();
+
+    public RoomTimeline(int minutesPerCell) {
+        this.minutesPerCell = checkCellLength(minutesPerCell);
+        this.cellsPerDay = MINUTES_PER_DAY / minutesPerCell;
+        this.wordsPerDay = wordsPerDay(minutesPerCell);
+    }
+
+    static int checkCellLength(int minutesPerCell) {
+        if (minutesPerCell < 1 || MINUTES_PER_DAY % minutesPerCell != 0) {
+            throw new IllegalArgumentException("Cell length must divide a day: " + minutesPerCell);
+        }
+        return minutesPerCell;
+    }
+
+    /**
+     * Payload bytes of one day's bitmap, without the array header or the map
+     * entry that holds it.
+     */
+    public static int bytesPerDay(int minutesPerCell) {
+        return wordsPerDay(checkCellLength(minutesPerCell)) * Long.BYTES;
+    }
+
+    static int wordsPerDay(int minutesPerCell) {
+        return (MINUTES_PER_DAY / minutesPerCell + 63) / 64;
+    }
+
+    @Override
+    public synchronized boolean overlaps(long startsAt, long finishesAt) {
+        return anyCellTaken(firstCell(startsAt), endCell(finishesAt)) && super.overlaps(startsAt, finishesAt);
+    }
+
+    @Override
+    public synchronized void add(long startsAt, long finishesAt) {
+        super.add(startsAt, finishesAt);
+        markCells(firstCell(startsAt), endCell(finishesAt));
+    }
+
+    @Override
+    public synchronized void remove(long startsAt, long finishesAt) {
+        if (indexOf(startsAt, finishesAt) < 0) {
+            return;
+        }
+        super.remove(startsAt, finishesAt);
+
+        long firstDay = Math.floorDiv(firstCell(startsAt), cellsPerDay);
+        long lastDay = Math.floorDiv(endCell(finishesAt) - 1, cellsPerDay);
+        for (long day = firstDay; day <= lastDay; day++) {
+            days.remove(day);
+        }
+        long from = firstDay * cellsPerDay * minutesPerCell;
+        long to = (lastDay + 1) * cellsPerDay * minutesPerCell;
+        int i = firstStartingAtOrAfter(from);
+        // Intervals that started earlier may still run into the rebuilt days.
+        for (int j = i - 1; j >= 0 && reach[j] > from; j--) {
+            if (ends[j] > from) {
+                markCells(firstCell(starts[j]), endCell(ends[j]));
+            }
+        }
+        for (; i < size && starts[i] < to; i++) {
+            markCells(firstCell(starts[i]), endCell(ends[i]));
+        }
+    }
+
+    /**
+     * Days that currently carry a bitmap, for memory accounting.
+     */
+    public synchronized int days() {
+        return days.size();
+    }
+
+    private long firstCell(long minute) {
+        return Math.floorDiv(minute, minutesPerCell);
+    }
+
+    // Exclusive: the first cell that lies wholly at or after the given minute.
+    private long endCell(long minute) {
+        return -Math.floorDiv(-minute, minutesPerCell);
+    }
+
+    private boolean anyCellTaken(long fromCell, long toCell) {
+        for (long day = Math.floorDiv(fromCell, cellsPerDay); day * cellsPerDay < toCell; day++) {
+            long[] words = days.get(day);
+            if (words == null) {
+                continue;
+            }
+            int from = (int) (Math.max(fromCell, day * cellsPerDay) - day * cellsPerDay);
+            int to = (int) (Math.min(toCell, (day + 1) * cellsPerDay) - day * cellsPerDay);
+            for (int word = from >>> 6; word <= (to - 1) >>> 6; word++) {
+                if ((words[word] & mask(word, from, to)) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void markCells(long fromCell, long toCell) {
+        for (long day = Math.floorDiv(fromCell, cellsPerDay); day * cellsPerDay < toCell; day++) {
+            long[] words = days.get(day);
+            if (words == null) {
+                words = new long[wordsPerDay];
+                days.put(day, words);
+            }
+            int from = (int) (Math.max(fromCell, day * cellsPerDay) - day * cellsPerDay);
+            int to = (int) (Math.min(toCell, (day + 1) * cellsPerDay) - day * cellsPerDay);
+            for (int word = from >>> 6; word <= (to - 1) >>> 6; word++) {
+                words[word] |= mask(word, from, to);
+            }
+        }
+    }
+
+    // Bits of the given word that fall inside cells [from, to) of the day.
+    private static long mask(int word, int from, int to) {
+        int low = Math.max(from, word << 6) - (word << 6);
+        int high = Math.min(to, (word + 1) << 6) - (word << 6);
+        long mask = -1L << low;
+        return high == 64 ? mask : mask & ((1L << high) - 1);
+    }
+}
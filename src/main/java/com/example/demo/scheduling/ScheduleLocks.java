@@ -0,0 +1,100 @@
+package com.example.demo.scheduling;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.entities.Appointment;
+
+/**
+ * Fixed pool of locks striped by resource: room name, doctor id and patient id.
+ *
+ * Bookings that share a room, doctor or patient always meet on a common
+ * stripe and are therefore linearized, while unrelated bookings almost always
+ * land on different stripes and run in parallel. Stripes are taken in index
+ * order, so two bookings can never deadlock on each other. The pool never
+ * grows, so there is nothing to clean up when rooms come and go.
+ */
+@Component
+public class ScheduleLocks {
+
+    private final ReentrantLock[] stripes;
+
+    public ScheduleLocks(@Value("${booking.lock-stripes:64}") int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Locks every resource the appointment would occupy until the returned
+     * handle is closed.
+     */
+    public Held lock(Appointment appointment) {
+        return lockAll(Collections.singletonList(appointment));
+    }
+
+    /**
+     * Locks every resource any of the appointments would occupy, as one
+     * ordered acquisition, until the returned handle is closed.
+     */
+    public Held lockAll(Collection<Appointment> appointments) {
+        int[] indexes = new int[3 * appointments.size()];
+        int count = 0;
+        for (Appointment appointment : appointments) {
+            indexes[count++] = stripe(ScheduleResource.ROOM, appointment.getRoom().getRoomName().hashCode());
+            long doctorId = AppointmentIndex.doctorId(appointment);
+            if (doctorId != 0) {
+                indexes[count++] = stripe(ScheduleResource.DOCTOR, Long.hashCode(doctorId));
+            }
+            long patientId = AppointmentIndex.patientId(appointment);
+            if (patientId != 0) {
+                indexes[count++] = stripe(ScheduleResource.PATIENT, Long.hashCode(patientId));
+            }
+        }
+        return acquire(Arrays.copyOf(indexes, count));
+    }
+
+    private Held acquire(int[] indexes) {
+        Arrays.sort(indexes);
+        int unique = 0;
+        for (int index : indexes) {
+            if (unique == 0 || indexes[unique - 1] != index) {
+                indexes[unique++] = index;
+            }
+        }
+        int[] held = Arrays.copyOf(indexes, unique);
+        for (int index : held) {
+            stripes[index].lock();
+        }
+        return new Held(held);
+    }
+
+    private int stripe(ScheduleResource resource, int hash) {
+        int h = hash * 31 + resource.ordinal();
+        // Spread the high bits down, as HashMap does, before masking.
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+
+    public final class Held implements AutoCloseable {
+
+        private final int[] indexes;
+
+        private Held(int[] indexes) {
+            this.indexes = indexes;
+        }
+
+        @Override
+        public void close() {
+            for (int i = indexes.length - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.scheduling;
+
+/**
+ * The resources an appointment occupies for its whole duration.
+ */
+public enum ScheduleResource {
+    ROOM,
+    DOCTOR,
+    PATIENT
+}
@@ -0,0 +1,31 @@
+package com.example.demo.scheduling;
+
+/**
+ * Thrown when the database refuses a room, doctor or patient slot because
+ * another appointment, possibly booked through another instance, already
+ * holds it.
+ */
+public class SlotConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ScheduleResource resource;
+
+    public SlotConflictException(String roomNames, Throwable cause) {
+        this(ScheduleResource.ROOM, roomNames, cause);
+    }
+
+    public SlotConflictException(ScheduleResource resource, String ids, Throwable cause) {
+        super(resource.name().charAt(0) + resource.name().substring(1).toLowerCase() + " slots already taken for " + ids,
+                cause);
+        this.resource = resource;
+    }
+
+    /**
+     * The kind of slot that was refused, the first one checked in room,
+     * doctor, patient order.
+     */
+    public ScheduleResource getResource() {
+        return this.resource;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.demo.scheduling;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sorted appointments of a single resource: a room, a doctor or a patient,
+ * kept as two parallel arrays of epoch minutes (see {@link EpochMinutes}).
+ *
+ * Intervals are half-open, [startsAt, finishesAt), sorted by start and then
+ * end. Bookings made through the index never overlap, but rows loaded from
+ * the database may, even with the same start, so each position also keeps
+ * the latest end reached by any interval up to it. That lets an overlap check
+ * binary-search the starts and look at one position only, without
+ * allocating or touching a date object, whether or not the intervals are
+ * disjoint. Every interval is kept, duplicates included, and removing one
+ * takes its exact period, so removing one of two overlapping rows leaves the
+ * other in force.
+ */
+public class Timeline {
+
+    long[] starts = new long[4];
+    long[] ends = new long[4];
+    // reach[i] is the latest end among intervals 0..i.
+    long[] reach = new long[4];
+    int size;
+
+    public boolean overlaps(LocalDateTime startsAt, LocalDateTime finishesAt) {
+        return overlaps(EpochMinutes.floor(startsAt), EpochMinutes.ceil(finishesAt));
+    }
+
+    public synchronized boolean overlaps(long startsAt, long finishesAt) {
+        // Every interval starting before the candidate ends overlaps it if it is
+        // still running when the candidate starts, and reach says whether any is.
+        int previous = firstStartingAtOrAfter(finishesAt) - 1;
+        return previous >= 0 && EpochMinutes.overlaps(starts[previous], reach[previous], startsAt, finishesAt);
+    }
+
+    /**
+     * The gaps between appointments inside [from, to) that are at least
+     * {@code length} long, earliest first, at most {@code limit} of them.
+     * Each gap is returned whole, clipped to [from, to); only the intervals
+     * that fall in the range are visited.
+     */
+    public synchronized List<TimeWindow> freeWindows(LocalDateTime from, LocalDateTime to, Duration length, int limit) {
+        List<TimeWindow> windows = new ArrayList<>();
+        long first = EpochMinutes.ceil(from);
+        long last = EpochMinutes.floor(to);
+        long minutes = -Math.floorDiv(-length.getSeconds(), 60);
+        long free = first;
+
+        // An appointment that started earlier may still be running at from.
+        int i = firstStartingAtOrAfter(first + 1);
+        if (i > 0 && reach[i - 1] > free) {
+            free = reach[i - 1];
+        }
+
+        for (; i < size && starts[i] < last; i++) {
+            if (windows.size() == limit) {
+                return windows;
+            }
+            if (free + minutes <= starts[i]) {
+                windows.add(window(free, starts[i]));
+            }
+            if (ends[i] > free) {
+                free = ends[i];
+            }
+        }
+        if (windows.size() < limit && free + minutes <= last) {
+            windows.add(window(free, last));
+        }
+        return windows;
+    }
+
+    public void add(LocalDateTime startsAt, LocalDateTime finishesAt) {
+        add(EpochMinutes.floor(startsAt), EpochMinutes.ceil(finishesAt));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the period does not end after it
+     *         starts
+     */
+    public synchronized void add(long startsAt, long finishesAt) {
+        if (finishesAt <= startsAt) {
+            throw new IllegalArgumentException("Period must end after it starts: [" + startsAt + ", " + finishesAt + ")");
+        }
+        int at = firstStartingAtOrAfter(startsAt);
+        while (at < size && starts[at] == startsAt && ends[at] <= finishesAt) {
+            at++;
+        }
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+            reach = Arrays.copyOf(reach, size * 2);
+        }
+        System.arraycopy(starts, at, starts, at + 1, size - at);
+        System.arraycopy(ends, at, ends, at + 1, size - at);
+        starts[at] = startsAt;
+        ends[at] = finishesAt;
+        size++;
+        updateReach(at);
+    }
+
+    public void remove(LocalDateTime startsAt, LocalDateTime finishesAt) {
+        remove(EpochMinutes.floor(startsAt), EpochMinutes.ceil(finishesAt));
+    }
+
+    /**
+     * Removes one interval with exactly this period, if there is one.
+     */
+    public synchronized void remove(long startsAt, long finishesAt) {
+        int at = indexOf(startsAt, finishesAt);
+        if (at < 0) {
+            return;
+        }
+        System.arraycopy(starts, at + 1, starts, at, size - at - 1);
+        System.arraycopy(ends, at + 1, ends, at, size - at - 1);
+        size--;
+        updateReach(at);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    int indexOf(long startsAt, long finishesAt) {
+        for (int at = firstStartingAtOrAfter(startsAt); at < size && starts[at] == startsAt; at++) {
+            if (ends[at] == finishesAt) {
+                return at;
+            }
+        }
+        return -1;
+    }
+
+    int firstStartingAtOrAfter(long minute) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] < minute) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void updateReach(int from) {
+        long reached = from > 0 ? reach[from - 1] : Long.MIN_VALUE;
+        for (int i = from; i < size; i++) {
+            reached = Math.max(reached, ends[i]);
+            reach[i] = reached;
+        }
+    }
+
+    private static TimeWindow window(long startsAt, long finishesAt) {
+        return new TimeWindow(EpochMinutes.toDateTime(startsAt), EpochMinutes.toDateTime(finishesAt));
+    }
+}
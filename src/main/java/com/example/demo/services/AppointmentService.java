@@ -0,0 +1,148 @@
+package com.example.demo.services;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo.entities.Appointment;
+import com.example.demo.repositories.AppointmentRepository;
+import com.example.demo.scheduling.AppointmentIndex;
+import com.example.demo.scheduling.BookingConflict;
+
+/**
+ * Transactional boundary between the appointment endpoints and the
+ * repository.
+ *
+ * Listings and lookups run in read-only transactions: Spring puts the session
+ * in FlushMode.MANUAL and Hibernate loads the entities read-only, without the
+ * snapshots it would otherwise keep to dirty-check them at commit.
+ *
+ * A booking, including its conflict check, is one write transaction. The
+ * AppointmentIndex only learns about it once that transaction has committed,
+ * so a rolled back booking never shows up as taken; callers still hold the
+ * ScheduleLocks of the appointment at that point.
+ */
+@Service
+@Transactional(readOnly = true)
+public class AppointmentService {
+
+    @Autowired
+    AppointmentRepository appointmentRepository;
+
+    @Autowired
+    AppointmentIndex appointmentIndex;
+
+    public List<Appointment> findAll() {
+        return appointmentRepository.findAll();
+    }
+
+    /**
+     * The first page of the listing, which starts with the appointments that
+     * have no start time, in id order, and goes on with the others in
+     * (startsAt, id) order.
+     */
+    public List<Appointment> findFirstPage(int limit) {
+        return findUnscheduledPageAfter(0, limit);
+    }
+
+    public List<Appointment> findUnscheduledPageAfter(long id, int limit) {
+        return appointmentRepository.findPageAfterUnscheduled(id, PageRequest.of(0, limit));
+    }
+
+    public List<Appointment> findPageAfter(LocalDateTime startsAt, long id, int limit) {
+        return appointmentRepository.findPageAfter(startsAt, id, PageRequest.of(0, limit));
+    }
+
+    public void streamAll(Consumer<Appointment> consumer) {
+        appointmentRepository.streamAll(consumer);
+    }
+
+    public Optional<Appointment> findById(long id) {
+        return appointmentRepository.findById(id);
+    }
+
+    /**
+     * Checks the appointment against the index and books it if it is free.
+     *
+     * @param byReference bind the patient, doctor and room by key, as
+     *        {@link AppointmentRepository#bookByReference} does
+     * @return the conflict, if the appointment was not booked
+     * @throws com.example.demo.scheduling.SlotConflictException if another
+     *         instance holds one of the room, doctor or patient slots
+     */
+    @Transactional
+    public Optional<BookingConflict> book(Appointment appointment, boolean byReference) {
+        // Only the local index is consulted up front. Bookings made through other
+        // instances are caught without a read by the slot keys when booking.
+        Optional<BookingConflict> conflict = appointmentIndex.conflictOf(appointment);
+        if (conflict.isPresent()) {
+            return conflict;
+        }
+
+        if (byReference) {
+            appointmentRepository.bookByReference(appointment);
+        } else {
+            appointmentRepository.book(appointment);
+        }
+        afterCommit(() -> appointmentIndex.add(appointment));
+        return Optional.empty();
+    }
+
+    /**
+     * Books appointments that were already checked against the index, all or
+     * none of them.
+     *
+     * @throws com.example.demo.scheduling.SlotConflictException if another
+     *         instance holds one of the room, doctor or patient slots
+     */
+    @Transactional
+    public List<Appointment> bookAll(List<Appointment> appointments) {
+        appointmentRepository.bookAll(appointments);
+        afterCommit(() -> appointments.forEach(appointmentIndex::add));
+        return appointments;
+    }
+
+    /**
+     * @return whether the appointment existed
+     */
+    @Transactional
+    public boolean deleteById(long id) {
+        // The index has to know the period being released, so this is the one
+        // delete that still reads the row first.
+        Optional<Appointment> appointment = appointmentRepository.findById(id);
+        if (!appointment.isPresent() || appointmentRepository.deleteInBulkById(id) == 0) {
+            return false;
+        }
+        afterCommit(() -> appointmentIndex.remove(appointment.get()));
+        return true;
+    }
+
+    @Transactional
+    public void deleteAll() {
+        appointmentRepository.deleteAllInBatch();
+        afterCommit(appointmentIndex::clear);
+    }
+
+    // Without a transaction manager, as in the controller slices, there is
+    // nothing to wait for.
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
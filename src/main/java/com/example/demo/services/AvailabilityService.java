@@ -0,0 +1,66 @@
+package com.example.demo.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.repositories.DoctorRepository;
+import com.example.demo.repositories.RoomRepository;
+import com.example.demo.scheduling.AppointmentIndex;
+import com.example.demo.scheduling.EpochMinutes;
+import com.example.demo.scheduling.TimeWindow;
+
+/**
+ * Free time searches. The existence check and any timeline the index still
+ * has to load share one read-only transaction.
+ */
+@Service
+@Transactional(readOnly = true)
+public class AvailabilityService {
+
+    @Autowired
+    AppointmentIndex appointmentIndex;
+
+    @Autowired
+    RoomRepository roomRepository;
+
+    @Autowired
+    DoctorRepository doctorRepository;
+
+    /**
+     * @return the free windows, or empty if there is no such room
+     */
+    public Optional<List<TimeWindow>> roomFreeWindows(String roomName, LocalDateTime from, LocalDateTime to,
+            Duration length, int limit) {
+        if (!roomRepository.findByRoomName(roomName).isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(appointmentIndex.roomFreeWindows(roomName, from, to, length, limit));
+    }
+
+    /**
+     * @return the free windows, or empty if there is no such doctor
+     */
+    public Optional<List<TimeWindow>> doctorFreeWindows(long doctorId, LocalDateTime from, LocalDateTime to,
+            Duration length, int limit) {
+        if (!doctorRepository.findById(doctorId).isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(appointmentIndex.doctorFreeWindows(doctorId, from, to, length, limit));
+    }
+
+    /**
+     * Asks the database in one query rather than loading a timeline for
+     * every room. The range is first widened to whole slots, so a room
+     * listed here is one the index would let the range be booked in.
+     */
+    public List<String> freeRooms(LocalDateTime from, LocalDateTime to) {
+        return roomRepository.findRoomNamesFreeBetween(EpochMinutes.toDateTime(appointmentIndex.slotStart(from)),
+                EpochMinutes.toDateTime(appointmentIndex.slotEnd(to)));
+    }
+}
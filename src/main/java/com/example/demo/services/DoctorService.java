@@ -0,0 +1,56 @@
+package com.example.demo.services;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.entities.Doctor;
+import com.example.demo.repositories.DoctorRepository;
+
+/**
+ * Reads run in read-only transactions, so Hibernate neither flushes nor keeps
+ * the loaded state of the doctors around for dirty checking.
+ */
+@Service
+@Transactional(readOnly = true)
+public class DoctorService {
+
+    @Autowired
+    DoctorRepository doctorRepository;
+
+    public List<Doctor> findAll() {
+        return doctorRepository.findAll();
+    }
+
+    public List<Doctor> findPageAfter(long afterId, int limit) {
+        return doctorRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, limit));
+    }
+
+    public Optional<Doctor> findById(long id) {
+        return doctorRepository.findById(id);
+    }
+
+    @Transactional
+    public Doctor save(Doctor doctor) {
+        return doctorRepository.save(doctor);
+    }
+
+    /**
+     * @return whether the doctor existed
+     * @throws org.springframework.dao.DataIntegrityViolationException if the
+     *         doctor still has appointments
+     */
+    @Transactional
+    public boolean deleteById(long id) {
+        return doctorRepository.deleteInBulkById(id) > 0;
+    }
+
+    @Transactional
+    public void deleteAll() {
+        doctorRepository.deleteAllInBatch();
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.services;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.entities.Patient;
+import com.example.demo.repositories.PatientRepository;
+
+/**
+ * Transactional boundary of the patient endpoints, read-only unless a method
+ * says otherwise, like {@link DoctorService}.
+ */
+@Service
+@Transactional(readOnly = true)
+public class PatientService {
+
+    @Autowired
+    PatientRepository patientRepository;
+
+    public List<Patient> findAll() {
+        return patientRepository.findAll();
+    }
+
+    public List<Patient> findPageAfter(long afterId, int limit) {
+        return patientRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, limit));
+    }
+
+    public Optional<Patient> findById(long id) {
+        return patientRepository.findById(id);
+    }
+
+    @Transactional
+    public Patient save(Patient patient) {
+        return patientRepository.save(patient);
+    }
+
+    /**
+     * @return whether the patient existed
+     * @throws org.springframework.dao.DataIntegrityViolationException if the
+     *         patient still has appointments
+     */
+    @Transactional
+    public boolean deleteById(long id) {
+        return patientRepository.deleteInBulkById(id) > 0;
+    }
+
+    @Transactional
+    public void deleteAll() {
+        patientRepository.deleteAllInBatch();
+    }
+}
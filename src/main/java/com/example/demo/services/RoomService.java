@@ -0,0 +1,61 @@
+package com.example.demo.services;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.entities.Room;
+import com.example.demo.repositories.RoomRepository;
+
+/**
+ * Transactional boundary of the room endpoints. Lookups by name and the name
+ * listing keep going through the query cache; the read-only transaction only
+ * matters when they miss it.
+ */
+@Service
+@Transactional(readOnly = true)
+public class RoomService {
+
+    @Autowired
+    RoomRepository roomRepository;
+
+    public List<Room> findAll() {
+        return roomRepository.findAll();
+    }
+
+    public List<Room> findPageAfter(String afterName, int limit) {
+        return roomRepository.findByRoomNameGreaterThanOrderByRoomNameAsc(afterName, PageRequest.of(0, limit));
+    }
+
+    public Optional<Room> findByRoomName(String roomName) {
+        return roomRepository.findByRoomName(roomName);
+    }
+
+    public List<String> findAllRoomNames() {
+        return roomRepository.findAllRoomNames();
+    }
+
+    @Transactional
+    public Room save(Room room) {
+        return roomRepository.save(room);
+    }
+
+    /**
+     * @return whether the room existed
+     * @throws org.springframework.dao.DataIntegrityViolationException if the
+     *         room still has appointments
+     */
+    @Transactional
+    public boolean deleteByRoomName(String roomName) {
+        return roomRepository.deleteInBulkByRoomName(roomName) > 0;
+    }
+
+    @Transactional
+    public void deleteAll() {
+        roomRepository.deleteAllInBatch();
+    }
+}
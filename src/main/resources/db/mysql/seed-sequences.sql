@@ -0,0 +1,15 @@
+-- Raises each *_seq table past its entity table's ids, for databases whose
+-- ids came from the old shared hibernate_sequence. Runs on every start, after
+-- Hibernate has created any missing *_seq table with next_val = 1, and only
+-- ever moves next_val up.
+--
+-- With allocationSize=50 Hibernate hands out the 49 ids below the next_val it
+-- reads as well as next_val itself, so next_val has to be max(id) + 50.
+update appointment_seq set next_val = (select max(id) + 50 from appointment)
+where next_val < (select max(id) + 50 from appointment);
+
+update doctor_seq set next_val = (select max(id) + 50 from doctors)
+where next_val < (select max(id) + 50 from doctors);
+
+update patient_seq set next_val = (select max(id) + 50 from patient)
+where next_val < (select max(id) + 50 from patient);
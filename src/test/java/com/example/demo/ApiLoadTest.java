@@ -0,0 +1,319 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.demo.entities.Appointment;
+import com.example.demo.entities.Doctor;
+import com.example.demo.entities.Patient;
+import com.example.demo.entities.Room;
+import com.example.demo.repositories.AppointmentRepository;
+import com.example.demo.repositories.DoctorRepository;
+import com.example.demo.repositories.PatientRepository;
+import com.example.demo.repositories.RoomRepository;
+import com.example.demo.scheduling.AppointmentIndex;
+
+/**
+ * Open-loop HTTP load against the application booted on H2.
+ *
+ * Requests are issued on a fixed schedule of load.rate per second for
+ * load.seconds, whether or not earlier ones have answered, and each latency
+ * is measured from the moment its request was due, so queueing behind a slow
+ * server shows up in the percentiles instead of slowing the generator down.
+ * Endpoints are picked at random by the weights in load.mix. A warm-up of
+ * load.warmup-seconds at the same rate runs first and is not recorded.
+ *
+ * For every endpoint the full HdrHistogram percentile distribution goes to
+ * target/load-test/&lt;endpoint&gt;.hgrm, and p50/p95/p99/p99.9 and throughput
+ * to target/load-test/summary.csv, both stable formats that CI can diff.
+ *
+ * Run with: mvn test -Pload-test [-Dload.rate=200 -Dload.seconds=30]
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ApiLoadTest {
+
+	private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+	private static final Path OUTPUT = Paths.get("target", "load-test");
+
+	private static final int ROOMS = 20;
+	private static final int DOCTORS = 50;
+	private static final int PATIENTS = 200;
+
+	enum Endpoint {
+		BOOK, LIST, ROOM, DOCTOR, DELETE
+	}
+
+	@Value("${load.rate:50}")
+	private int rate;
+
+	@Value("${load.seconds:15}")
+	private int seconds;
+
+	@Value("${load.warmup-seconds:5}")
+	private int warmupSeconds;
+
+	@Value("${load.clients:64}")
+	private int clients;
+
+	@Value("${load.seed-appointments:1000}")
+	private int seedAppointments;
+
+	@Value("${load.mix:book=40,list=5,room=20,doctor=20,delete=15}")
+	private String mix;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private AppointmentIndex appointmentIndex;
+
+	@Autowired
+	private PatientRepository patientRepository;
+
+	@Autowired
+	private DoctorRepository doctorRepository;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	private final List<Long> doctorIds = new ArrayList<>();
+	private final List<Long> patientIds = new ArrayList<>();
+	private final Queue<Long> deletable = new ConcurrentLinkedQueue<>();
+
+	@BeforeEach
+	void seed() {
+		for (int i = 0; i < ROOMS; i++) {
+			roomRepository.save(new Room("Room-" + i));
+		}
+		for (int i = 0; i < DOCTORS; i++) {
+			doctorIds.add(doctorRepository.save(new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe")).getId());
+		}
+		for (int i = 0; i < PATIENTS; i++) {
+			patientIds.add(patientRepository.save(new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com")).getId());
+		}
+
+		// The targets of the deletes, booked well clear of the load's own slots.
+		List<Appointment> appointments = new ArrayList<>();
+		LocalDateTime first = LocalDateTime.of(2031, 1, 1, 0, 0);
+		for (int i = 0; i < seedAppointments; i++) {
+			LocalDateTime startsAt = first.plusHours(i / ROOMS);
+			appointments.add(new Appointment(patient(patientIds.get(i % PATIENTS)), doctor(doctorIds.get(i % DOCTORS)),
+					new Room("Room-" + (i % ROOMS)), startsAt, startsAt.plusMinutes(30)));
+		}
+		appointmentRepository.bookAll(appointments);
+		appointments.forEach(appointment -> deletable.add(appointment.getId()));
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("delete from appointment");
+		jdbcTemplate.update("delete from patient");
+		jdbcTemplate.update("delete from doctors");
+		jdbcTemplate.update("delete from room");
+		entityManagerFactory.getCache().evictAll();
+		appointmentIndex.clear();
+	}
+
+	@Test
+	void shouldHoldTheTargetRateWithoutServerErrors() throws Exception {
+		Map<Endpoint, Integer> weights = parseMix(mix);
+		Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+		Map<Endpoint, AtomicLong> serverErrors = new EnumMap<>(Endpoint.class);
+		for (Endpoint endpoint : Endpoint.values()) {
+			latencies.put(endpoint, new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3));
+			serverErrors.put(endpoint, new AtomicLong());
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(clients);
+		Random random = new Random(42);
+		run(executor, random, weights, warmupSeconds, null, null);
+
+		long start = System.nanoTime();
+		long total = run(executor, random, weights, seconds, latencies, serverErrors);
+		executor.shutdown();
+		assertThat(executor.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+		double elapsed = (System.nanoTime() - start) / 1e9;
+
+		report(latencies, serverErrors, elapsed);
+
+		assertThat(latencies.values().stream().mapToLong(Histogram::getTotalCount).sum()).isEqualTo(total);
+		assertThat(serverErrors.values()).allSatisfy(errors -> assertThat(errors.get()).isZero());
+	}
+
+	/**
+	 * Issues rate * seconds requests on schedule and returns how many; with
+	 * null maps nothing is recorded, which is how the warm-up runs.
+	 */
+	private long run(ExecutorService executor, Random random, Map<Endpoint, Integer> weights, int seconds,
+			Map<Endpoint, Histogram> latencies, Map<Endpoint, AtomicLong> serverErrors) {
+		long total = (long) rate * seconds;
+		long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+		long start = System.nanoTime();
+
+		for (long i = 0; i < total; i++) {
+			long due = start + i * interval;
+			long wait = due - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			Endpoint endpoint = pick(weights, random);
+			Function<Random, Integer> request = request(endpoint);
+			long requestSeed = random.nextLong();
+			executor.execute(() -> {
+				int status = request.apply(new Random(requestSeed));
+				if (latencies == null) {
+					return;
+				}
+				latencies.get(endpoint).recordValue(Math.max(0, (System.nanoTime() - due) / 1000));
+				if (status >= 500) {
+					serverErrors.get(endpoint).incrementAndGet();
+				}
+			});
+		}
+		return total;
+	}
+
+	private Function<Random, Integer> request(Endpoint endpoint) {
+		switch (endpoint) {
+		case BOOK:
+			return random -> {
+				LocalDateTime startsAt = LocalDateTime.of(2030, 1, 1, 0, 0).plusMinutes(15L * random.nextInt(30 * 24 * 4));
+				String body = "{\"patient\":{\"id\":" + patientIds.get(random.nextInt(PATIENTS)) + "},"
+						+ "\"doctor\":{\"id\":" + doctorIds.get(random.nextInt(DOCTORS)) + "},"
+						+ "\"room\":{\"roomName\":\"Room-" + random.nextInt(ROOMS) + "\"},"
+						+ "\"startsAt\":\"" + startsAt.format(FORMATTER) + "\","
+						+ "\"finishesAt\":\"" + startsAt.plusMinutes(30).format(FORMATTER) + "\"}";
+				HttpHeaders headers = new HttpHeaders();
+				headers.setContentType(MediaType.APPLICATION_JSON);
+				return exchange("/api/appointment", HttpMethod.POST, new HttpEntity<>(body, headers));
+			};
+		case LIST:
+			return random -> exchange("/api/appointments", HttpMethod.GET, null);
+		case ROOM:
+			return random -> exchange("/api/rooms/Room-" + random.nextInt(ROOMS), HttpMethod.GET, null);
+		case DOCTOR:
+			return random -> exchange("/api/doctors/" + doctorIds.get(random.nextInt(DOCTORS)), HttpMethod.GET, null);
+		default:
+			return random -> {
+				Long id = deletable.poll();
+				return exchange("/api/appointments/" + (id == null ? Long.MAX_VALUE : id), HttpMethod.DELETE, null);
+			};
+		}
+	}
+
+	private int exchange(String path, HttpMethod method, HttpEntity<?> entity) {
+		try {
+			return restTemplate.exchange(path, method, entity, String.class).getStatusCodeValue();
+		} catch (RuntimeException ex) {
+			return 599;
+		}
+	}
+
+	private void report(Map<Endpoint, Histogram> latencies, Map<Endpoint, AtomicLong> serverErrors, double elapsed)
+			throws IOException {
+		Files.createDirectories(OUTPUT);
+		StringBuilder summary = new StringBuilder("endpoint,requests,throughput_per_sec,p50_ms,p95_ms,p99_ms,p999_ms,max_ms,server_errors\n");
+		System.out.printf("rate=%d/s seconds=%d clients=%d%n", rate, seconds, clients);
+		for (Map.Entry<Endpoint, Histogram> entry : latencies.entrySet()) {
+			Histogram histogram = entry.getValue();
+			if (histogram.getTotalCount() == 0) {
+				continue;
+			}
+			String name = entry.getKey().name().toLowerCase();
+			try (PrintStream out = new PrintStream(Files.newOutputStream(OUTPUT.resolve(name + ".hgrm")))) {
+				histogram.outputPercentileDistribution(out, 1000.0);
+			}
+			String line = String.format("%s,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f,%d", name, histogram.getTotalCount(),
+					histogram.getTotalCount() / elapsed, millis(histogram, 50), millis(histogram, 95), millis(histogram, 99),
+					millis(histogram, 99.9), histogram.getMaxValue() / 1000.0, serverErrors.get(entry.getKey()).get());
+			summary.append(line).append('\n');
+			System.out.println(line);
+		}
+		Files.write(OUTPUT.resolve("summary.csv"), summary.toString().getBytes());
+	}
+
+	private static double millis(Histogram histogram, double percentile) {
+		return histogram.getValueAtPercentile(percentile) / 1000.0;
+	}
+
+	private static Map<Endpoint, Integer> parseMix(String mix) {
+		Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+		for (String part : mix.split(",")) {
+			String[] pair = part.trim().split("=");
+			weights.put(Endpoint.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+		}
+		return weights;
+	}
+
+	private static Endpoint pick(Map<Endpoint, Integer> weights, Random random) {
+		int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+		int ticket = random.nextInt(total);
+		for (Map.Entry<Endpoint, Integer> weight : weights.entrySet()) {
+			ticket -= weight.getValue();
+			if (ticket < 0) {
+				return weight.getKey();
+			}
+		}
+		throw new IllegalStateException("Unreachable");
+	}
+
+	private static Patient patient(long id) {
+		Patient patient = new Patient();
+		patient.setId(id);
+		return patient;
+	}
+
+	private static Doctor doctor(long id) {
+		Doctor doctor = new Doctor();
+		doctor.setId(id);
+		return doctor;
+	}
+}
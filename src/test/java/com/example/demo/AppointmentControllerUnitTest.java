@@ -1,7 +1,11 @@
 package com.example.demo;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -14,25 +18,39 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import java.time.LocalDateTime;
 import java.time.format.*;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
+import com.example.demo.cache.ResponseCache;
 import com.example.demo.controllers.AppointmentController;
 import com.example.demo.repositories.*;
 import com.example.demo.entities.*;
+import com.example.demo.scheduling.AppointmentIndex;
+import com.example.demo.scheduling.AppointmentRequest;
+import com.example.demo.scheduling.ScheduleLocks;
+import com.example.demo.scheduling.SlotConflictException;
+import com.example.demo.services.AppointmentService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 @WebMvcTest(AppointmentController.class)
+@Import({AppointmentService.class, AppointmentIndex.class, ScheduleLocks.class, ResponseCache.class})
 class AppointmentControllerUnitTest{
 
     @MockBean
@@ -44,6 +62,14 @@ class AppointmentControllerUnitTest{
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private AppointmentIndex appointmentIndex;
+
+    @BeforeEach
+    void resetIndex() {
+        appointmentIndex.clear();
+    }
+
     @Test
     void shouldCreateAppointment() throws Exception {
         
@@ -84,6 +110,24 @@ class AppointmentControllerUnitTest{
 
     }
 
+    @Test
+    void shouldNotCreateAppointmentLongerThanADay() throws Exception {
+        Appointment appointment = new Appointment(new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com"),
+                new Doctor ("Perla", "Amalia", 24, "p.amalia@hospital.accwe"), new Room("Dermatology"),
+                LocalDateTime.of(2023, 4, 24, 19, 30), LocalDateTime.of(2023, 4, 25, 19, 35));
+
+        mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(appointment)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/appointments").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new AppointmentRequest(3L, 7L, "Dermatology",
+                        appointment.getStartsAt(), appointment.getFinishesAt()))))
+                .andExpect(status().isBadRequest());
+
+        verify(appointmentRepository, never()).book(any());
+        verify(appointmentRepository, never()).bookByReference(any());
+    }
+
     @Test
     void shouldCreateOneAppointmentOutOfTwoConflictDate() throws Exception{
         Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
@@ -112,6 +156,9 @@ class AppointmentControllerUnitTest{
         appointments.add(appointment);
         
         when(appointmentRepository.findAll()).thenReturn(appointments);
+        // The room had nothing booked, so its next check reads the committed row.
+        List<AppointmentPeriod> committed = Collections.singletonList(period(appointment));
+        when(appointmentRepository.findByRoomRoomName("Dermatology")).thenReturn(committed);
         mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(appointment2)))
                 .andExpect(status().isNotAcceptable());
@@ -158,6 +205,251 @@ class AppointmentControllerUnitTest{
 
     }
     
+    @Test
+    void shouldNotCreateAppointmentContainingAnExistingOne() throws Exception {
+        Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
+        Doctor doctor = new Doctor ("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+        Room room = new Room("Dermatology");
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+
+        Appointment inner = new Appointment(patient, doctor, room,
+                LocalDateTime.parse("19:30 24/04/2023", formatter),
+                LocalDateTime.parse("20:00 24/04/2023", formatter));
+        Appointment outer = new Appointment(patient, doctor, room,
+                LocalDateTime.parse("19:00 24/04/2023", formatter),
+                LocalDateTime.parse("21:00 24/04/2023", formatter));
+
+        mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(inner)))
+                .andExpect(status().isOk());
+
+        List<AppointmentPeriod> committed = Collections.singletonList(period(inner));
+        when(appointmentRepository.findByRoomRoomName("Dermatology")).thenReturn(committed);
+        mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(outer)))
+                .andExpect(status().isNotAcceptable());
+
+        verify(appointmentRepository, never()).findAll();
+    }
+
+    @Test
+    void shouldCreateBackToBackAppointments() throws Exception {
+        Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
+        Doctor doctor = new Doctor ("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+        Room room = new Room("Dermatology");
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+
+        Appointment first = new Appointment(patient, doctor, room,
+                LocalDateTime.parse("19:00 24/04/2023", formatter),
+                LocalDateTime.parse("19:30 24/04/2023", formatter));
+        Appointment second = new Appointment(patient, doctor, room,
+                LocalDateTime.parse("19:30 24/04/2023", formatter),
+                LocalDateTime.parse("20:00 24/04/2023", formatter));
+
+        mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(first)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(second)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldNotCreateAppointmentBookedElsewhere() throws Exception {
+        Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
+        Doctor doctor = new Doctor ("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+        Room room = new Room("Dermatology");
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+
+        LocalDateTime startsAt= LocalDateTime.parse("19:30 24/04/2023", formatter);
+        LocalDateTime finishesAt = LocalDateTime.parse("20:30 24/04/2023", formatter);
+
+        Appointment appointment = new Appointment(patient, doctor, room, startsAt, finishesAt);
+
+        when(appointmentRepository.book(any(Appointment.class)))
+                .thenThrow(new SlotConflictException("Dermatology", null));
+        mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(appointment)))
+                .andExpect(status().isNotAcceptable())
+                .andExpect(jsonPath("$.resource").value("ROOM"));
+    }
+
+    @Test
+    void shouldNotBookTheSameDoctorInTwoRooms() throws Exception {
+        Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
+        Patient patient2 = new Patient("Paulino", "Antunez", 37, "p.antunez@email.com");
+        Doctor doctor = new Doctor ("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+
+        LocalDateTime startsAt= LocalDateTime.parse("19:30 24/04/2023", formatter);
+        LocalDateTime finishesAt = LocalDateTime.parse("20:30 24/04/2023", formatter);
+
+        doctor.setId(7);
+        patient.setId(1);
+        patient2.setId(2);
+
+        Appointment appointment = new Appointment(patient, doctor, new Room("Dermatology"), startsAt, finishesAt);
+        Appointment appointment2 = new Appointment(patient2, doctor, new Room("Oncology"), startsAt, finishesAt);
+
+        mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(appointment)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(appointment2)))
+                .andExpect(status().isNotAcceptable())
+                .andExpect(jsonPath("$.resource").value("DOCTOR"))
+                .andExpect(jsonPath("$.id").value("7"));
+    }
+
+    @Test
+    void shouldNotBookTheSamePatientWithTwoDoctors() throws Exception {
+        Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
+        Doctor doctor = new Doctor ("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+        Doctor doctor2 = new Doctor ("Miren", "Iniesta", 24, "m.iniesta@hospital.accwe");
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+
+        patient.setId(3);
+        doctor.setId(1);
+        doctor2.setId(2);
+
+        Appointment appointment = new Appointment(patient, doctor, new Room("Dermatology"),
+                LocalDateTime.parse("19:30 24/04/2023", formatter),
+                LocalDateTime.parse("20:30 24/04/2023", formatter));
+        Appointment appointment2 = new Appointment(patient, doctor2, new Room("Oncology"),
+                LocalDateTime.parse("20:00 24/04/2023", formatter),
+                LocalDateTime.parse("21:00 24/04/2023", formatter));
+
+        mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(appointment)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(appointment2)))
+                .andExpect(status().isNotAcceptable())
+                .andExpect(jsonPath("$.resource").value("PATIENT"))
+                .andExpect(jsonPath("$.id").value("3"));
+    }
+
+    @Test
+    void shouldBookABatchAndReportEachItem() throws Exception {
+        Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
+        Patient patient2 = new Patient("Paulino", "Antunez", 37, "p.antunez@email.com");
+        Doctor doctor = new Doctor ("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+        Doctor doctor2 = new Doctor ("Miren", "Iniesta", 24, "m.iniesta@hospital.accwe");
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+
+        patient.setId(1);
+        patient2.setId(2);
+        doctor.setId(1);
+        doctor2.setId(2);
+
+        List<Appointment> batch = Arrays.asList(
+                new Appointment(patient2, doctor, new Room("Oncology"),
+                        LocalDateTime.parse("10:30 24/04/2023", formatter),
+                        LocalDateTime.parse("11:30 24/04/2023", formatter)),
+                new Appointment(patient2, doctor2, new Room("Dermatology"),
+                        LocalDateTime.parse("10:30 24/04/2023", formatter),
+                        LocalDateTime.parse("11:30 24/04/2023", formatter)),
+                new Appointment(patient, doctor, new Room("Dermatology"),
+                        LocalDateTime.parse("11:00 24/04/2023", formatter),
+                        LocalDateTime.parse("11:00 24/04/2023", formatter)),
+                new Appointment(patient, doctor, new Room("Dermatology"),
+                        LocalDateTime.parse("10:00 24/04/2023", formatter),
+                        LocalDateTime.parse("11:00 24/04/2023", formatter)));
+
+        when(appointmentRepository.bookAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        mockMvc.perform(post("/api/appointments/batch").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("NOT_ACCEPTABLE"))
+                .andExpect(jsonPath("$[0].conflict.resource").value("DOCTOR"))
+                .andExpect(jsonPath("$[1].status").value("NOT_ACCEPTABLE"))
+                .andExpect(jsonPath("$[1].conflict.resource").value("ROOM"))
+                .andExpect(jsonPath("$[2].status").value("BAD_REQUEST"))
+                .andExpect(jsonPath("$[3].status").value("OK"));
+
+        ArgumentCaptor<List<Appointment>> booked = ArgumentCaptor.forClass(List.class);
+        verify(appointmentRepository).bookAll(booked.capture());
+        assertThat(booked.getValue()).hasSize(1);
+        assertThat(booked.getValue().get(0).getStartsAt()).isEqualTo(batch.get(3).getStartsAt());
+    }
+
+    @Test
+    void shouldRejectMissingBatchItemsAndRoomNamesOneByOne() throws Exception {
+        String batch = "[null,"
+                + "{\"doctor\":{\"id\":1},\"room\":{},\"startsAt\":\"10:00 24/04/2023\",\"finishesAt\":\"11:00 24/04/2023\"},"
+                + "{\"doctor\":{\"id\":1},\"room\":{\"roomName\":\"Oncology\"},\"startsAt\":\"10:00 24/04/2023\",\"finishesAt\":\"11:00 24/04/2023\"}]";
+
+        when(appointmentRepository.bookAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        mockMvc.perform(post("/api/appointments/batch").contentType(MediaType.APPLICATION_JSON).content(batch))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("BAD_REQUEST"))
+                .andExpect(jsonPath("$[1].status").value("BAD_REQUEST"))
+                .andExpect(jsonPath("$[2].status").value("OK"));
+    }
+
+    @Test
+    void shouldBookByIdsWithoutNestedEntities() throws Exception{
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+
+        AppointmentRequest request = new AppointmentRequest(3L, 7L, "Dermatology",
+                LocalDateTime.parse("19:30 24/04/2023", formatter), LocalDateTime.parse("20:30 24/04/2023", formatter));
+
+        mockMvc.perform(post("/api/appointments").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        ArgumentCaptor<Appointment> booked = ArgumentCaptor.forClass(Appointment.class);
+        verify(appointmentRepository).bookByReference(booked.capture());
+        assertThat(booked.getValue().getPatient().getId()).isEqualTo(3L);
+        assertThat(booked.getValue().getDoctor().getId()).isEqualTo(7L);
+        assertThat(booked.getValue().getRoom().getRoomName()).isEqualTo("Dermatology");
+
+        mockMvc.perform(post("/api/appointments").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new AppointmentRequest(4L, 7L, "Oncology",
+                        LocalDateTime.parse("20:00 24/04/2023", formatter), LocalDateTime.parse("21:00 24/04/2023", formatter)))))
+                .andExpect(status().isNotAcceptable())
+                .andExpect(jsonPath("$.resource").value("DOCTOR"));
+    }
+
+    @Test
+    void shouldNotBookByIdsWithoutADoctor() throws Exception{
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+
+        AppointmentRequest request = new AppointmentRequest(3L, null, "Dermatology",
+                LocalDateTime.parse("19:30 24/04/2023", formatter), LocalDateTime.parse("20:30 24/04/2023", formatter));
+
+        mockMvc.perform(post("/api/appointments").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verify(appointmentRepository, never()).bookByReference(any());
+    }
+
+    @Test
+    void shouldNotBookByIdsThatDoNotExist() throws Exception{
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+
+        AppointmentRequest request = new AppointmentRequest(null, 99L, "Dermatology",
+                LocalDateTime.parse("19:30 24/04/2023", formatter), LocalDateTime.parse("20:30 24/04/2023", formatter));
+        when(appointmentRepository.bookByReference(any(Appointment.class)))
+                .thenThrow(new DataIntegrityViolationException("doctor_id"));
+
+        mockMvc.perform(post("/api/appointments").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void shouldGetNoAppointments() throws Exception{
         List<Appointment> appointments = new ArrayList<Appointment>();
@@ -196,6 +488,39 @@ class AppointmentControllerUnitTest{
                 
     }
 
+    @Test
+    void shouldStreamAppointmentsAsOneJsonArray() throws Exception{
+        Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
+        Doctor doctor = new Doctor ("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+        Room room = new Room("Dermatology");
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+
+        Appointment appointment = new Appointment(patient, doctor, room,
+                LocalDateTime.parse("19:00 24/04/2023", formatter), LocalDateTime.parse("20:00 24/04/2023", formatter));
+        Appointment appointment2 = new Appointment(patient, doctor, room,
+                LocalDateTime.parse("20:00 24/04/2023", formatter), LocalDateTime.parse("20:30 24/04/2023", formatter));
+
+        doAnswer(invocation -> {
+            Consumer<Appointment> consumer = invocation.getArgument(0);
+            consumer.accept(appointment);
+            consumer.accept(appointment2);
+            return null;
+        }).when(appointmentRepository).streamAll(any());
+
+        MvcResult result = mockMvc.perform(get("/api/appointments").param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].room.roomName").value("Dermatology"));
+
+        verify(appointmentRepository, never()).findAll();
+    }
+
     @Test
     void shouldGetAppointmentById() throws Exception{
         Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
@@ -224,6 +549,43 @@ class AppointmentControllerUnitTest{
                 
     }
     
+    @Test
+    void shouldPageAppointmentsWithoutAStartBeforeTheOthers() throws Exception{
+        Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
+        Doctor doctor = new Doctor ("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+        Room room = new Room("Dermatology");
+
+        Appointment first = new Appointment(patient, doctor, room, null, null);
+        first.setId(1);
+        Appointment second = new Appointment(patient, doctor, room, null, null);
+        second.setId(2);
+        LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 8, 0);
+        Appointment scheduled = new Appointment(patient, doctor, room, startsAt, startsAt.plusMinutes(30));
+        scheduled.setId(3);
+
+        when(appointmentRepository.findPageAfterUnscheduled(eq(0L), any()))
+                .thenReturn(Arrays.asList(first, second));
+        when(appointmentRepository.findPageAfterUnscheduled(eq(1L), any()))
+                .thenReturn(Arrays.asList(second, scheduled));
+        when(appointmentRepository.findPageAfterUnscheduled(eq(2L), any()))
+                .thenReturn(Collections.singletonList(scheduled));
+
+        List<Long> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            MvcResult result = mockMvc.perform(cursor == null
+                    ? get("/api/appointments").param("size", "1")
+                    : get("/api/appointments").param("size", "1").param("cursor", cursor))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            JsonNode page = objectMapper.readTree(result.getResponse().getContentAsString());
+            page.get("items").forEach(item -> walked.add(item.get("id").asLong()));
+            cursor = page.hasNonNull("nextCursor") ? page.get("nextCursor").asText() : null;
+        } while (cursor != null);
+
+        assertThat(walked).containsExactly(1L, 2L, 3L);
+    }
+
     @Test
     void shouldNotGetAnyAppointmentById() throws Exception{
         long id = 31;
@@ -255,6 +617,7 @@ class AppointmentControllerUnitTest{
         assertThat(appointment.getId()).isEqualTo(1);
 
         when(appointmentRepository.findById(appointment.getId())).thenReturn(opt);
+        when(appointmentRepository.deleteInBulkById(appointment.getId())).thenReturn(1);
         mockMvc.perform(delete("/api/appointments/" + appointment.getId()))
                 .andExpect(status().isOk());
                 
@@ -274,5 +637,18 @@ class AppointmentControllerUnitTest{
                 .andExpect(status().isOk());
                 
     }
-}
 
+    private static AppointmentPeriod period(Appointment appointment) {
+        return new AppointmentPeriod() {
+            @Override
+            public LocalDateTime getStartsAt() {
+                return appointment.getStartsAt();
+            }
+
+            @Override
+            public LocalDateTime getFinishesAt() {
+                return appointment.getFinishesAt();
+            }
+        };
+    }
+}
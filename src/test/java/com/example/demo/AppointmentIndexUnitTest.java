@@ -0,0 +1,443 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.entities.Appointment;
+import com.example.demo.entities.Doctor;
+import com.example.demo.entities.Patient;
+import com.example.demo.entities.Room;
+import com.example.demo.repositories.AppointmentPeriod;
+import com.example.demo.repositories.AppointmentRepository;
+import com.example.demo.scheduling.AppointmentIndex;
+import com.example.demo.scheduling.BookingConflict;
+import com.example.demo.scheduling.EpochMinutes;
+import com.example.demo.scheduling.ScheduleResource;
+import com.example.demo.scheduling.TimeWindow;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AppointmentIndexUnitTest {
+
+	private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+
+	private AppointmentRepository appointmentRepository;
+
+	private AppointmentIndex index;
+
+	// Stands in for the appointment table behind findByRoomRoomName.
+	private final List<Appointment> committed = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		appointmentRepository = mock(AppointmentRepository.class);
+		when(appointmentRepository.findByRoomRoomName(anyString())).thenAnswer(invocation -> committed.stream()
+				.filter(appointment -> appointment.getRoom().getRoomName().equals(invocation.getArgument(0)))
+				.map(AppointmentIndexUnitTest::periodOf)
+				.collect(Collectors.toList()));
+		index = new AppointmentIndex(appointmentRepository);
+	}
+
+	private Appointment appointment(String roomName, String startsAt, String finishesAt) {
+		return new Appointment(new Patient("Juana", "Sosa", 53, "jsosa@xmail.com"),
+				new Doctor("Marcos", "Corporan", 28, "Mcorporan@hospital.com"), new Room(roomName),
+				LocalDateTime.parse(startsAt, formatter), LocalDateTime.parse(finishesAt, formatter));
+	}
+
+	// Books the way AppointmentService does: the check loads the timelines,
+	// and the committed appointment is then added to those that were kept.
+	private void book(Appointment appointment) {
+		index.hasOverlap(appointment);
+		committed.add(appointment);
+		index.add(appointment);
+	}
+
+	private void cancel(Appointment appointment) {
+		committed.remove(appointment);
+		index.remove(appointment);
+	}
+
+	private static AppointmentPeriod periodOf(Appointment appointment) {
+		return new AppointmentPeriod() {
+			@Override
+			public LocalDateTime getStartsAt() {
+				return appointment.getStartsAt();
+			}
+
+			@Override
+			public LocalDateTime getFinishesAt() {
+				return appointment.getFinishesAt();
+			}
+		};
+	}
+
+	@Test
+	void shouldDetectEveryKindOfOverlap() {
+		book(appointment("gynecology", "19:30 22/10/2023", "20:30 22/10/2023"));
+
+		assertThat(index.hasOverlap(appointment("gynecology", "19:30 22/10/2023", "21:00 22/10/2023"))).isTrue();
+		assertThat(index.hasOverlap(appointment("gynecology", "19:00 22/10/2023", "20:30 22/10/2023"))).isTrue();
+		assertThat(index.hasOverlap(appointment("gynecology", "20:00 22/10/2023", "20:15 22/10/2023"))).isTrue();
+		assertThat(index.hasOverlap(appointment("gynecology", "19:00 22/10/2023", "19:45 22/10/2023"))).isTrue();
+		assertThat(index.hasOverlap(appointment("gynecology", "19:00 22/10/2023", "21:00 22/10/2023"))).isTrue();
+	}
+
+	@Test
+	void shouldAllowAdjacentAppointmentsAndOtherRooms() {
+		book(appointment("gynecology", "19:30 22/10/2023", "20:30 22/10/2023"));
+
+		assertThat(index.hasOverlap(appointment("gynecology", "18:30 22/10/2023", "19:30 22/10/2023"))).isFalse();
+		assertThat(index.hasOverlap(appointment("gynecology", "20:30 22/10/2023", "21:30 22/10/2023"))).isFalse();
+		assertThat(index.hasOverlap(appointment("oncology", "19:30 22/10/2023", "20:30 22/10/2023"))).isFalse();
+	}
+
+	@Test
+	void shouldForgetRemovedAppointments() {
+		Appointment booked = appointment("gynecology", "19:30 22/10/2023", "20:30 22/10/2023");
+		book(booked);
+		cancel(booked);
+
+		assertThat(index.hasOverlap(booked)).isFalse();
+	}
+
+	@Test
+	void shouldLoadEachRoomOnlyOnce() {
+		AppointmentPeriod period = mock(AppointmentPeriod.class);
+		when(period.getStartsAt()).thenReturn(LocalDateTime.parse("10:00 23/10/2023", formatter));
+		when(period.getFinishesAt()).thenReturn(LocalDateTime.parse("10:30 23/10/2023", formatter));
+		when(appointmentRepository.findByRoomRoomName("gynecology")).thenReturn(Collections.singletonList(period));
+
+		assertThat(index.hasOverlap(appointment("gynecology", "10:15 23/10/2023", "11:00 23/10/2023"))).isTrue();
+		assertThat(index.hasOverlap(appointment("gynecology", "10:30 23/10/2023", "11:00 23/10/2023"))).isFalse();
+
+		verify(appointmentRepository, times(1)).findByRoomRoomName("gynecology");
+	}
+
+	@Test
+	void shouldLoadOverlappingRowsWithTheSameStart() {
+		AppointmentPeriod longer = period("10:00 23/10/2023", "11:00 23/10/2023");
+		AppointmentPeriod shorter = period("10:00 23/10/2023", "10:30 23/10/2023");
+		when(appointmentRepository.findByRoomRoomName("gynecology")).thenReturn(Arrays.asList(longer, shorter));
+
+		assertThat(index.hasOverlap(appointment("gynecology", "10:45 23/10/2023", "11:15 23/10/2023"))).isTrue();
+
+		index.remove(appointment("gynecology", "10:00 23/10/2023", "10:30 23/10/2023"));
+		assertThat(index.hasOverlap(appointment("gynecology", "10:45 23/10/2023", "11:15 23/10/2023"))).isTrue();
+
+		index.remove(appointment("gynecology", "10:00 23/10/2023", "11:00 23/10/2023"));
+		assertThat(index.hasOverlap(appointment("gynecology", "10:00 23/10/2023", "11:15 23/10/2023"))).isFalse();
+	}
+
+	@Test
+	void shouldKeepAnEarlierLongerRowInForce() {
+		List<AppointmentPeriod> rows = Arrays.asList(period("09:00 23/10/2023", "12:00 23/10/2023"),
+				period("10:00 23/10/2023", "10:30 23/10/2023"), period("13:00 23/10/2023", "12:00 23/10/2023"));
+		when(appointmentRepository.findByRoomRoomName("gynecology")).thenReturn(rows);
+
+		assertThat(index.hasOverlap(appointment("gynecology", "11:00 23/10/2023", "11:30 23/10/2023"))).isTrue();
+		assertThat(index.roomFreeWindows("gynecology",
+				LocalDateTime.parse("09:00 23/10/2023", formatter), LocalDateTime.parse("13:00 23/10/2023", formatter),
+				Duration.ofMinutes(30), 10)).extracting(TimeWindow::getStartsAt).containsExactly(
+						LocalDateTime.parse("12:00 23/10/2023", formatter));
+	}
+
+	@Test
+	void shouldFindEveryDoctorLoadedConcurrently() throws Exception {
+		List<AppointmentPeriod> booked = Collections.singletonList(period("10:00 23/10/2023", "10:30 23/10/2023"));
+		when(appointmentRepository.findByDoctorId(anyLong())).thenReturn(booked);
+		int doctors = 5_000;
+
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Integer>> found = new ArrayList<>();
+			for (int thread = 0; thread < 8; thread++) {
+				int offset = thread * doctors / 8;
+				found.add(pool.submit(() -> {
+					int conflicts = 0;
+					for (int i = 0; i < doctors; i++) {
+						Appointment candidate = appointment("oncology", "10:15 23/10/2023", "11:00 23/10/2023");
+						candidate.getDoctor().setId(1 + (offset + i) % doctors);
+						if (index.conflictOf(candidate).isPresent()) {
+							conflicts++;
+						}
+					}
+					return conflicts;
+				}));
+			}
+			for (Future<Integer> conflicts : found) {
+				assertThat(conflicts.get()).isEqualTo(doctors);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void shouldCountADoctorCreatedWithTheAppointmentOnce() {
+		// The doctor had no id, and so no timeline, when the booking was
+		// checked; its timeline is loaded afterwards, committed row included.
+		Appointment booked = appointment("gynecology", "10:00 23/10/2023", "10:30 23/10/2023");
+		index.hasOverlap(booked);
+		booked.getDoctor().setId(7);
+		index.add(booked);
+		List<AppointmentPeriod> committed = Collections.singletonList(period("10:00 23/10/2023", "10:30 23/10/2023"));
+		when(appointmentRepository.findByDoctorId(7L)).thenReturn(committed);
+
+		Appointment rebooked = appointment("oncology", "10:00 23/10/2023", "10:30 23/10/2023");
+		rebooked.getDoctor().setId(7);
+		assertThat(index.conflictOf(rebooked)).get()
+				.extracting(BookingConflict::getResource).isEqualTo(ScheduleResource.DOCTOR);
+
+		index.remove(booked);
+		assertThat(index.conflictOf(rebooked)).isEmpty();
+	}
+
+	@Test
+	void shouldCheckRoomsBeforeTheWindowInTheDatabase() {
+		AppointmentIndex windowed = new AppointmentIndex(appointmentRepository, 5, 5, 30, new SimpleMeterRegistry());
+		when(appointmentRepository.existsOverlap("gynecology", LocalDateTime.parse("19:30 22/10/2023", formatter),
+				LocalDateTime.parse("20:30 22/10/2023", formatter))).thenReturn(true);
+
+		assertThat(windowed.conflictOf(appointment("gynecology", "19:32 22/10/2023", "20:28 22/10/2023"))).get()
+				.extracting(BookingConflict::getResource).isEqualTo(ScheduleResource.ROOM);
+		assertThat(windowed.roomFreeWindows("gynecology", LocalDateTime.parse("08:00 22/10/2023", formatter),
+				LocalDateTime.parse("20:00 22/10/2023", formatter), Duration.ofMinutes(30), 10)).isEmpty();
+		verify(appointmentRepository, never()).findByRoomRoomName(anyString());
+		verify(appointmentRepository, never()).findByRoomRoomNameAndFinishesAtAfter(anyString(), any());
+	}
+
+	@Test
+	void shouldLoadRoomsFromTheStartOfTheWindow() {
+		AppointmentIndex windowed = new AppointmentIndex(appointmentRepository, 5, 5, 30, new SimpleMeterRegistry());
+		LocalDateTime windowStart = LocalDate.now().minusDays(30).atStartOfDay();
+
+		assertThat(windowed.conflictOf(appointment("gynecology", "10:00 23/10/2099", "10:30 23/10/2099"))).isEmpty();
+
+		assertThat(EpochMinutes.toDateTime(windowed.windowStart())).isEqualTo(windowStart);
+		verify(appointmentRepository).findByRoomRoomNameAndFinishesAtAfter("gynecology", windowStart);
+		verify(appointmentRepository, never()).existsOverlap(anyString(), any(), any());
+	}
+
+	@Test
+	void shouldCheckDoctorsAndPatientsBeforeTheWindowInTheDatabase() {
+		AppointmentIndex windowed = new AppointmentIndex(appointmentRepository, 5, 5, 30, new SimpleMeterRegistry());
+		Appointment past = appointment("gynecology", "19:30 22/10/2023", "20:30 22/10/2023");
+		past.getDoctor().setId(4);
+		past.getPatient().setId(9);
+		when(appointmentRepository.existsPatientOverlap(9L, past.getStartsAt(), past.getFinishesAt())).thenReturn(true);
+
+		assertThat(windowed.conflictOf(past)).get()
+				.extracting(BookingConflict::getResource).isEqualTo(ScheduleResource.PATIENT);
+		verify(appointmentRepository).existsDoctorOverlap(4L, past.getStartsAt(), past.getFinishesAt());
+		verify(appointmentRepository, never()).findByDoctorIdAndFinishesAtAfter(anyLong(), any());
+		verify(appointmentRepository, never()).findByPatientIdAndFinishesAtAfter(anyLong(), any());
+	}
+
+	@Test
+	void shouldNotKeepRoomsWithNothingBooked() {
+		index.hasOverlap(appointment("no-such-room", "10:00 23/10/2023", "10:30 23/10/2023"));
+		index.hasOverlap(appointment("no-such-room", "11:00 23/10/2023", "11:30 23/10/2023"));
+
+		verify(appointmentRepository, times(2)).findByRoomRoomName("no-such-room");
+	}
+
+	@Test
+	void shouldReloadEveryTimelineWhenTheWindowMoves() {
+		MutableClock clock = new MutableClock(LocalDate.of(2099, 10, 22).atTime(23, 0));
+		AppointmentIndex windowed = new AppointmentIndex(appointmentRepository, 5, 5, 30, new SimpleMeterRegistry(), clock);
+		Appointment sameRoom = appointment("gynecology", "10:00 23/10/2099", "10:30 23/10/2099");
+		Appointment sameDoctor = appointment("oncology", "10:00 23/10/2099", "10:30 23/10/2099");
+		sameDoctor.getDoctor().setId(4);
+		List<AppointmentPeriod> rows = Collections.singletonList(period("10:00 23/10/2099", "10:30 23/10/2099"));
+		when(appointmentRepository.findByRoomRoomNameAndFinishesAtAfter(eq("gynecology"), any())).thenReturn(rows);
+		when(appointmentRepository.findByDoctorIdAndFinishesAtAfter(eq(4L), any())).thenReturn(rows);
+
+		for (int day = 0; day < 2; day++) {
+			for (int check = 0; check < 2; check++) {
+				assertThat(windowed.conflictOf(sameRoom)).get()
+						.extracting(BookingConflict::getResource).isEqualTo(ScheduleResource.ROOM);
+				assertThat(windowed.conflictOf(sameDoctor)).get()
+						.extracting(BookingConflict::getResource).isEqualTo(ScheduleResource.DOCTOR);
+			}
+			clock.advance(Duration.ofHours(2));
+		}
+
+		LocalDateTime before = LocalDateTime.of(2099, 9, 22, 0, 0);
+		LocalDateTime after = before.plusDays(1);
+		verify(appointmentRepository).findByRoomRoomNameAndFinishesAtAfter("gynecology", before);
+		verify(appointmentRepository).findByRoomRoomNameAndFinishesAtAfter("gynecology", after);
+		verify(appointmentRepository).findByDoctorIdAndFinishesAtAfter(4L, before);
+		verify(appointmentRepository).findByDoctorIdAndFinishesAtAfter(4L, after);
+	}
+
+	@Test
+	void shouldRejectReversedPeriods() {
+		assertThatThrownBy(() -> index.add(appointment("gynecology", "11:00 23/10/2023", "10:00 23/10/2023")))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private AppointmentPeriod period(String startsAt, String finishesAt) {
+		AppointmentPeriod period = mock(AppointmentPeriod.class);
+		when(period.getStartsAt()).thenReturn(LocalDateTime.parse(startsAt, formatter));
+		when(period.getFinishesAt()).thenReturn(LocalDateTime.parse(finishesAt, formatter));
+		return period;
+	}
+
+	@Test
+	void shouldReportWhichResourceIsTaken() {
+		Appointment booked = appointment("gynecology", "19:30 22/10/2023", "20:30 22/10/2023");
+		booked.getDoctor().setId(1);
+		booked.getPatient().setId(1);
+		book(booked);
+
+		Appointment sameDoctor = appointment("oncology", "20:00 22/10/2023", "21:00 22/10/2023");
+		sameDoctor.getDoctor().setId(1);
+		sameDoctor.getPatient().setId(2);
+		assertThat(index.conflictOf(sameDoctor)).get()
+				.extracting(BookingConflict::getResource).isEqualTo(ScheduleResource.DOCTOR);
+
+		Appointment samePatient = appointment("oncology", "20:00 22/10/2023", "21:00 22/10/2023");
+		samePatient.getDoctor().setId(2);
+		samePatient.getPatient().setId(1);
+		assertThat(index.conflictOf(samePatient)).get()
+				.extracting(BookingConflict::getResource).isEqualTo(ScheduleResource.PATIENT);
+
+		Appointment unrelated = appointment("oncology", "20:00 22/10/2023", "21:00 22/10/2023");
+		unrelated.getDoctor().setId(2);
+		unrelated.getPatient().setId(2);
+		assertThat(index.conflictOf(unrelated)).isEmpty();
+	}
+
+	@Test
+	void shouldLoadDoctorTimelinesFromTheDatabase() {
+		AppointmentPeriod period = mock(AppointmentPeriod.class);
+		when(period.getStartsAt()).thenReturn(LocalDateTime.parse("10:00 23/10/2023", formatter));
+		when(period.getFinishesAt()).thenReturn(LocalDateTime.parse("10:30 23/10/2023", formatter));
+		when(appointmentRepository.findByDoctorId(5L)).thenReturn(Collections.singletonList(period));
+
+		Appointment candidate = appointment("oncology", "10:15 23/10/2023", "11:00 23/10/2023");
+		candidate.getDoctor().setId(5);
+
+		assertThat(index.conflictOf(candidate)).get()
+				.extracting(BookingConflict::getId).isEqualTo("5");
+	}
+
+	@Test
+	void shouldListGapsLongEnoughBetweenBookings() {
+		book(appointment("gynecology", "09:00 23/10/2023", "09:30 23/10/2023"));
+		book(appointment("gynecology", "09:45 23/10/2023", "11:00 23/10/2023"));
+		book(appointment("gynecology", "11:20 23/10/2023", "12:00 23/10/2023"));
+
+		List<TimeWindow> windows = index.roomFreeWindows("gynecology",
+				LocalDateTime.parse("09:15 23/10/2023", formatter), LocalDateTime.parse("13:00 23/10/2023", formatter),
+				Duration.ofMinutes(20), 10);
+
+		assertThat(windows).extracting(TimeWindow::getStartsAt).containsExactly(
+				LocalDateTime.parse("11:00 23/10/2023", formatter), LocalDateTime.parse("12:00 23/10/2023", formatter));
+		assertThat(windows).extracting(TimeWindow::getFinishesAt).containsExactly(
+				LocalDateTime.parse("11:20 23/10/2023", formatter), LocalDateTime.parse("13:00 23/10/2023", formatter));
+	}
+
+	@Test
+	void shouldStopAfterTheRequestedNumberOfWindows() {
+		book(appointment("gynecology", "09:00 23/10/2023", "09:30 23/10/2023"));
+		book(appointment("gynecology", "10:00 23/10/2023", "10:30 23/10/2023"));
+
+		List<TimeWindow> windows = index.roomFreeWindows("gynecology",
+				LocalDateTime.parse("08:00 23/10/2023", formatter), LocalDateTime.parse("12:00 23/10/2023", formatter),
+				Duration.ofMinutes(30), 2);
+
+		assertThat(windows).extracting(TimeWindow::getStartsAt).containsExactly(
+				LocalDateTime.parse("08:00 23/10/2023", formatter), LocalDateTime.parse("09:30 23/10/2023", formatter));
+	}
+
+	@Test
+	void shouldFindNoWindowInsideALongBooking() {
+		book(appointment("gynecology", "08:00 23/10/2023", "18:00 23/10/2023"));
+
+		assertThat(index.roomFreeWindows("gynecology",
+				LocalDateTime.parse("09:00 23/10/2023", formatter), LocalDateTime.parse("17:00 23/10/2023", formatter),
+				Duration.ofMinutes(5), 10)).isEmpty();
+		assertThat(index.isRoomFree("gynecology",
+				LocalDateTime.parse("18:00 23/10/2023", formatter), LocalDateTime.parse("19:00 23/10/2023", formatter))).isTrue();
+	}
+
+	@Test
+	void shouldConflictWhereTheRoomSlotsWould() {
+		book(appointment("gynecology", "10:00 23/10/2023", "10:07 23/10/2023"));
+
+		assertThat(index.conflictOf(appointment("gynecology", "10:07 23/10/2023", "10:15 23/10/2023"))).get()
+				.extracting(BookingConflict::getResource).isEqualTo(ScheduleResource.ROOM);
+		assertThat(index.hasOverlap(appointment("oncology", "10:10 23/10/2023", "10:15 23/10/2023"))).isFalse();
+		assertThat(index.isRoomFree("gynecology",
+				LocalDateTime.parse("10:08 23/10/2023", formatter), LocalDateTime.parse("10:09 23/10/2023", formatter))).isFalse();
+	}
+
+	@Test
+	void shouldOnlyOfferWindowsThatStartOnAFreeSlot() {
+		book(appointment("gynecology", "10:00 23/10/2023", "10:07 23/10/2023"));
+
+		List<TimeWindow> windows = index.roomFreeWindows("gynecology",
+				LocalDateTime.parse("10:00 23/10/2023", formatter), LocalDateTime.parse("11:00 23/10/2023", formatter),
+				Duration.ofMinutes(10), 10);
+
+		assertThat(windows).extracting(TimeWindow::getStartsAt).containsExactly(
+				LocalDateTime.parse("10:10 23/10/2023", formatter));
+	}
+
+	private static final class MutableClock extends Clock {
+
+		private Instant now;
+
+		MutableClock(LocalDateTime now) {
+			this.now = now.atZone(ZoneId.systemDefault()).toInstant();
+		}
+
+		void advance(Duration duration) {
+			now = now.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneId.systemDefault();
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+	}
+}
@@ -1,6 +1,10 @@
 package com.example.demo;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -8,16 +12,21 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 
+import com.example.demo.cache.SecondLevelCacheConfiguration;
 import com.example.demo.repositories.*;
 import com.example.demo.entities.*;
 
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace=Replace.NONE)
+@Import(SecondLevelCacheConfiguration.class)
 class AppointmentJpaUnitTest {
 
     @Autowired
@@ -35,6 +44,9 @@ class AppointmentJpaUnitTest {
     @Autowired
     RoomRepository repoRooms;
 
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
     @Test
     void should_find_no_appointments_if_repository_is_empty(){
         Iterable<Appointment> appointments = repoAppointments.findAll();
@@ -258,4 +270,135 @@ class AppointmentJpaUnitTest {
         assertThat(appointments).isEmpty();
     }
     
+    @Test
+    void should_index_appointments_by_room_and_period(){
+        Integer columns = jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.index_columns where index_name = 'IDX_APPOINTMENT_ROOM_PERIOD'",
+                Integer.class);
+        assertThat(columns).isEqualTo(3);
+    }
+
+    @Test
+    void should_find_overlap_only_in_the_same_room(){
+        Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
+        Doctor doctor = new Doctor ("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+        Room room1 = new Room("Dermatology");
+        Room room2 = new Room("Oncology");
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+
+        entityManager.persist(patient);
+        entityManager.persist(doctor);
+        entityManager.persist(room1);
+        entityManager.persist(room2);
+        entityManager.persist(new Appointment(patient, doctor, room1,
+                LocalDateTime.parse("19:30 24/04/2023", formatter),
+                LocalDateTime.parse("20:30 24/04/2023", formatter)));
+
+        assertThat(repoAppointments.existsOverlap("Dermatology",
+                LocalDateTime.parse("19:00 24/04/2023", formatter),
+                LocalDateTime.parse("21:00 24/04/2023", formatter))).isTrue();
+        assertThat(repoAppointments.existsOverlap("Dermatology",
+                LocalDateTime.parse("20:00 24/04/2023", formatter),
+                LocalDateTime.parse("20:15 24/04/2023", formatter))).isTrue();
+        assertThat(repoAppointments.existsOverlap("Dermatology",
+                LocalDateTime.parse("20:30 24/04/2023", formatter),
+                LocalDateTime.parse("21:00 24/04/2023", formatter))).isFalse();
+        assertThat(repoAppointments.existsOverlap("Oncology",
+                LocalDateTime.parse("19:30 24/04/2023", formatter),
+                LocalDateTime.parse("20:30 24/04/2023", formatter))).isFalse();
+    }
+
+    @Test
+    void should_walk_appointments_page_by_page_in_start_order(){
+        Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
+        Doctor doctor = new Doctor ("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+        Room room = new Room("Dermatology");
+
+        entityManager.persist(patient);
+        entityManager.persist(doctor);
+        entityManager.persist(room);
+
+        // Two appointments share each start time, so the id has to break ties.
+        LocalDateTime day = LocalDateTime.of(2023, 4, 24, 8, 0);
+        for (int i = 4; i >= 0; i--) {
+            entityManager.persist(new Appointment(patient, doctor, room, day.plusHours(i), day.plusHours(i).plusMinutes(30)));
+            entityManager.persist(new Appointment(patient, doctor, room, day.plusHours(i), day.plusHours(i).plusMinutes(45)));
+        }
+
+        List<Appointment> walked = new ArrayList<>();
+        List<Appointment> page = repoAppointments.findPageAfterUnscheduled(0, PageRequest.of(0, 3));
+        while (!page.isEmpty()) {
+            walked.addAll(page);
+            Appointment last = page.get(page.size() - 1);
+            page = repoAppointments.findPageAfter(last.getStartsAt(), last.getId(), PageRequest.of(0, 3));
+        }
+
+        assertThat(walked).hasSize(10)
+            .isSortedAccordingTo(Comparator.comparing(Appointment::getStartsAt).thenComparing(Appointment::getId));
+    }
+
+    @Test
+    void should_page_appointments_without_a_start_first(){
+        Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
+        Doctor doctor = new Doctor ("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+        Room room = new Room("Dermatology");
+
+        entityManager.persist(patient);
+        entityManager.persist(doctor);
+        entityManager.persist(room);
+
+        LocalDateTime day = LocalDateTime.of(2023, 4, 24, 8, 0);
+        entityManager.persist(new Appointment(patient, doctor, room, day, day.plusMinutes(30)));
+        for (int i = 0; i < 3; i++) {
+            entityManager.persist(new Appointment(patient, doctor, room, null, null));
+        }
+
+        List<Appointment> walked = new ArrayList<>();
+        List<Appointment> page = repoAppointments.findPageAfterUnscheduled(0, PageRequest.of(0, 2));
+        while (!page.isEmpty()) {
+            walked.addAll(page);
+            Appointment last = page.get(page.size() - 1);
+            page = last.getStartsAt() == null
+                ? repoAppointments.findPageAfterUnscheduled(last.getId(), PageRequest.of(0, 2))
+                : repoAppointments.findPageAfter(last.getStartsAt(), last.getId(), PageRequest.of(0, 2));
+        }
+
+        assertThat(walked).hasSize(4);
+        assertThat(walked.subList(0, 3)).allMatch(appointment -> appointment.getStartsAt() == null)
+            .isSortedAccordingTo(Comparator.comparing(Appointment::getId));
+        assertThat(walked.get(3).getStartsAt()).isEqualTo(day);
+    }
+
+    @Test
+    void should_stream_appointments_with_their_associations_detached(){
+        Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
+        Doctor doctor = new Doctor ("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+        Room room = new Room("Dermatology");
+
+        entityManager.persist(patient);
+        entityManager.persist(doctor);
+        entityManager.persist(room);
+
+        LocalDateTime day = LocalDateTime.of(2023, 4, 24, 8, 0);
+        for (int i = 0; i < 5; i++) {
+            entityManager.persist(new Appointment(patient, doctor, room, day.plusHours(i), day.plusHours(i).plusMinutes(30)));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Appointment> streamed = new ArrayList<>();
+        repoAppointments.streamAll(appointment -> {
+            assertThat(entityManager.getEntityManager().contains(appointment)).isTrue();
+            streamed.add(appointment);
+        });
+
+        assertThat(streamed).hasSize(5).isSortedAccordingTo(Comparator.comparing(Appointment::getId));
+        for (Appointment appointment : streamed) {
+            assertThat(entityManager.getEntityManager().contains(appointment)).isFalse();
+            assertThat(entityManager.getEntityManager().contains(appointment.getRoom())).isFalse();
+            assertThat(appointment.getDoctor().getFirstName()).isEqualTo("Perla");
+        }
+    }
+
 }
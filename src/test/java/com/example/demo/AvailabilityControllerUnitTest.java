@@ -0,0 +1,141 @@
+package com.example.demo;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.controllers.AvailabilityController;
+import com.example.demo.entities.Appointment;
+import com.example.demo.entities.Doctor;
+import com.example.demo.entities.Patient;
+import com.example.demo.entities.Room;
+import com.example.demo.repositories.AppointmentPeriod;
+import com.example.demo.repositories.AppointmentRepository;
+import com.example.demo.repositories.DoctorRepository;
+import com.example.demo.repositories.RoomRepository;
+import com.example.demo.scheduling.AppointmentIndex;
+import com.example.demo.services.AvailabilityService;
+
+@WebMvcTest(AvailabilityController.class)
+@Import({AvailabilityService.class, AppointmentIndex.class})
+class AvailabilityControllerUnitTest {
+
+	@MockBean
+	private AppointmentRepository appointmentRepository;
+
+	@MockBean
+	private RoomRepository roomRepository;
+
+	@MockBean
+	private DoctorRepository doctorRepository;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private AppointmentIndex appointmentIndex;
+
+	@BeforeEach
+	void setUp() {
+		appointmentIndex.clear();
+		Doctor doctor = new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+		doctor.setId(4);
+		Appointment booked = new Appointment(new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com"), doctor,
+				new Room("Dermatology"), LocalDateTime.of(2023, 4, 24, 9, 0), LocalDateTime.of(2023, 4, 24, 10, 0));
+		// Checked first, as when booking, so its timelines are loaded to add to.
+		// The room had nothing booked and is not kept, so it reads the row again.
+		appointmentIndex.conflictOf(booked);
+		List<AppointmentPeriod> committed = Collections.singletonList(period(booked));
+		when(appointmentRepository.findByRoomRoomName("Dermatology")).thenReturn(committed);
+		appointmentIndex.add(booked);
+	}
+
+	@Test
+	void shouldListFreeWindowsOfARoom() throws Exception {
+		when(roomRepository.findByRoomName("Dermatology")).thenReturn(Optional.of(new Room("Dermatology")));
+
+		mockMvc.perform(get("/api/availability/rooms/Dermatology")
+				.param("from", "2023-04-24T08:00").param("to", "2023-04-24T12:00").param("minutes", "30"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2))
+				.andExpect(jsonPath("$[0].startsAt").value("08:00 24/04/2023"))
+				.andExpect(jsonPath("$[0].finishesAt").value("09:00 24/04/2023"))
+				.andExpect(jsonPath("$[1].startsAt").value("10:00 24/04/2023"));
+	}
+
+	@Test
+	void shouldListFreeWindowsOfADoctor() throws Exception {
+		when(doctorRepository.findById(4L)).thenReturn(Optional.of(new Doctor()));
+
+		mockMvc.perform(get("/api/availability/doctors/4")
+				.param("from", "2023-04-24T08:00").param("to", "2023-04-24T12:00")
+				.param("minutes", "90").param("limit", "1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].startsAt").value("10:00 24/04/2023"));
+	}
+
+	@Test
+	void shouldListRoomsFreeForAWindowWithOneQuery() throws Exception {
+		clearInvocations(appointmentRepository);
+		when(roomRepository.findRoomNamesFreeBetween(LocalDateTime.of(2023, 4, 24, 9, 30),
+				LocalDateTime.of(2023, 4, 24, 10, 35))).thenReturn(Arrays.asList("Cardiology"));
+
+		mockMvc.perform(get("/api/availability/rooms")
+				.param("from", "2023-04-24T09:32").param("to", "2023-04-24T10:31"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0]").value("Cardiology"));
+
+		verify(appointmentRepository, never()).findByRoomRoomName(anyString());
+	}
+
+	@Test
+	void shouldRejectAnEmptyRange() throws Exception {
+		mockMvc.perform(get("/api/availability/rooms/Dermatology")
+				.param("from", "2023-04-24T12:00").param("to", "2023-04-24T08:00").param("minutes", "30"))
+				.andExpect(status().isBadRequest());
+
+		verify(roomRepository, never()).findByRoomName("Dermatology");
+	}
+
+	@Test
+	void shouldNotSearchUnknownRooms() throws Exception {
+		mockMvc.perform(get("/api/availability/rooms/Oncology")
+				.param("from", "2023-04-24T08:00").param("to", "2023-04-24T12:00").param("minutes", "30"))
+				.andExpect(status().isNotFound());
+	}
+
+	private static AppointmentPeriod period(Appointment appointment) {
+		return new AppointmentPeriod() {
+			@Override
+			public LocalDateTime getStartsAt() {
+				return appointment.getStartsAt();
+			}
+
+			@Override
+			public LocalDateTime getFinishesAt() {
+				return appointment.getFinishesAt();
+			}
+		};
+	}
+}
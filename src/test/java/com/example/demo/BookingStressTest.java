@@ -0,0 +1,152 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+
+import com.example.demo.cache.ResponseCache;
+import com.example.demo.controllers.AppointmentController;
+import com.example.demo.entities.Appointment;
+import com.example.demo.entities.Doctor;
+import com.example.demo.entities.Patient;
+import com.example.demo.entities.Room;
+import com.example.demo.repositories.AppointmentPeriod;
+import com.example.demo.repositories.AppointmentRepository;
+import com.example.demo.scheduling.AppointmentIndex;
+import com.example.demo.scheduling.ScheduleLocks;
+import com.example.demo.services.AppointmentService;
+
+/**
+ * Hammers POST /api/appointment from many threads at once over a handful of
+ * rooms, doctors and patients and a small time grid, so most attempts
+ * collide. Every booking the controller accepts is captured from the
+ * repository and checked for double-bookings of each resource afterwards.
+ */
+@SpringBootTest(classes = { AppointmentController.class, AppointmentService.class, AppointmentIndex.class, ScheduleLocks.class,
+		ResponseCache.class, JacksonAutoConfiguration.class })
+class BookingStressTest {
+
+	private static final int ROOMS = 8;
+	private static final int DOCTORS = 6;
+	private static final int PATIENTS = 24;
+	private static final int ATTEMPTS_PER_THREAD = 500;
+
+	@MockBean
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private AppointmentController appointmentController;
+
+	@Autowired
+	private AppointmentIndex appointmentIndex;
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 2, 4, 8, 16 })
+	void shouldNeverDoubleBookARoom(int threads) throws Exception {
+		appointmentIndex.clear();
+		Queue<Appointment> saved = new ConcurrentLinkedQueue<>();
+		when(appointmentRepository.book(any(Appointment.class))).thenAnswer(invocation -> {
+			Appointment appointment = invocation.getArgument(0);
+			saved.add(appointment);
+			return appointment;
+		});
+		// Rooms with nothing booked are read again on every check, so the table
+		// the captured bookings stand for has to answer too.
+		when(appointmentRepository.findByRoomRoomName(anyString())).thenAnswer(invocation -> saved.stream()
+				.filter(appointment -> appointment.getRoom().getRoomName().equals(invocation.getArgument(0)))
+				.map(BookingStressTest::period)
+				.collect(Collectors.toList()));
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		Queue<HttpStatus> statuses = new ConcurrentLinkedQueue<>();
+		LocalDateTime day = LocalDateTime.of(2023, 4, 24, 8, 0);
+
+		for (int t = 0; t < threads; t++) {
+			Random random = new Random(t);
+			executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+					LocalDateTime startsAt = day.plusMinutes(5L * random.nextInt(120));
+					LocalDateTime finishesAt = startsAt.plusMinutes(5L * (1 + random.nextInt(6)));
+					Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
+					patient.setId(1 + random.nextInt(PATIENTS));
+					Doctor doctor = new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+					doctor.setId(1 + random.nextInt(DOCTORS));
+					Appointment appointment = new Appointment(patient, doctor,
+							new Room("Room-" + random.nextInt(ROOMS)), startsAt, finishesAt);
+					statuses.add(appointmentController.createAppointment(appointment).getStatusCode());
+				}
+				return null;
+			});
+		}
+
+		long begin = System.nanoTime();
+		start.countDown();
+		executor.shutdown();
+		assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+		double seconds = (System.nanoTime() - begin) / 1e9;
+
+		long accepted = statuses.stream().filter(HttpStatus.OK::equals).count();
+		System.out.printf("threads=%d attempts=%d accepted=%d bookings/sec=%.0f%n",
+				threads, statuses.size(), accepted, statuses.size() / seconds);
+
+		assertThat(statuses).hasSize(threads * ATTEMPTS_PER_THREAD)
+				.doesNotContain(HttpStatus.INTERNAL_SERVER_ERROR);
+		assertThat(saved).hasSize((int) accepted);
+
+		assertNoOverlaps(saved, appointment -> appointment.getRoom().getRoomName());
+		assertNoOverlaps(saved, appointment -> appointment.getDoctor().getId());
+		assertNoOverlaps(saved, appointment -> appointment.getPatient().getId());
+	}
+
+	private static void assertNoOverlaps(Collection<Appointment> saved, Function<Appointment, Object> resource) {
+		Map<Object, List<Appointment>> byResource = saved.stream().collect(Collectors.groupingBy(resource));
+		for (List<Appointment> bookings : byResource.values()) {
+			List<Appointment> sorted = new ArrayList<>(bookings);
+			sorted.sort(Comparator.comparing(Appointment::getStartsAt));
+			for (int i = 1; i < sorted.size(); i++) {
+				assertThat(sorted.get(i).getStartsAt()).isAfterOrEqualTo(sorted.get(i - 1).getFinishesAt());
+			}
+		}
+	}
+
+	private static AppointmentPeriod period(Appointment appointment) {
+		return new AppointmentPeriod() {
+			@Override
+			public LocalDateTime getStartsAt() {
+				return appointment.getStartsAt();
+			}
+
+			@Override
+			public LocalDateTime getFinishesAt() {
+				return appointment.getFinishesAt();
+			}
+		};
+	}
+}
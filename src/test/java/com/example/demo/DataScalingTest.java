@@ -0,0 +1,429 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.client.RequestCallback;
+
+import com.example.demo.cache.ResponseCache;
+import com.example.demo.scheduling.AppointmentIndex;
+
+/**
+ * Latency of every endpoint against table size.
+ *
+ * Steps N through scaling.steps (10^3 to 10^6 by default). At each step the
+ * patient, doctors, room and appointment tables are topped up to N rows with
+ * JDBC batches, the in-memory caches are dropped, and every endpoint is timed
+ * as the median of scaling.repetitions single requests after one warm-up
+ * call. A full unrecorded pass over the endpoints runs before the first step.
+ * All appointments go to HOT rooms, doctors and patients, so per-resource
+ * timelines grow with N too. Endpoints that read a whole table stop being
+ * timed once N passes scaling.unbounded-max, and the free-room search, which
+ * loads one room timeline per query on its first call, at a tenth of that;
+ * their curve is clear by then and the next step would only exhaust the heap
+ * or the patience of whoever runs it.
+ *
+ * The slope of log(latency) over log(N) is fitted per endpoint, and anything
+ * at or above scaling.flag-slope is flagged as linear or worse. The default of
+ * 0.5 sits below 1 on purpose: the fixed cost of a request flattens the low
+ * end of the curve, so a full-table read fits at about 0.7 over 10^3..10^5,
+ * while constant-time endpoints stay within 0.2 of zero. Results go to
+ * target/scaling/latency.csv and target/scaling/report.html.
+ *
+ * Seeded rows take ids from SEEDED upwards, far above anything the sequences
+ * hand out, so they never collide with rows the endpoints create. They get no
+ * room_slot rows; bookings are still checked against them through the index.
+ *
+ * Run with: mvn test -Pscaling [-Dscaling.steps=1000,10000]
+ */
+@Tag("scaling")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class DataScalingTest {
+
+	private static final Path OUTPUT = Paths.get("target", "scaling");
+	private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+	private static final LocalDateTime SEEDED_FROM = LocalDateTime.of(2024, 1, 1, 0, 0);
+	private static final LocalDateTime BOOKED_FROM = LocalDateTime.of(2040, 1, 1, 0, 0);
+	private static final long SEEDED = 1_000_000_000L;
+	private static final int HOT = 100;
+	private static final int BATCH = 10_000;
+
+	@Value("${scaling.steps:1000,10000,100000,1000000}")
+	private long[] steps;
+
+	@Value("${scaling.repetitions:5}")
+	private int repetitions;
+
+	@Value("${scaling.unbounded-max:100000}")
+	private long unboundedMax;
+
+	@Value("${scaling.flag-slope:0.5}")
+	private double flagSlope;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private AppointmentIndex appointmentIndex;
+
+	@Autowired
+	private ResponseCache responseCache;
+
+	private final AtomicLong bookings = new AtomicLong();
+	private final AtomicLong created = new AtomicLong();
+	private long seeded;
+	// Deletes so far, counted down from the top of the seeded range; after
+	// a step grows the range this only skips a few untouched rows.
+	private long deletedAppointments;
+	private long deletedIdle;
+
+	/**
+	 * One endpoint call; the argument counts calls, so each call can pick
+	 * rows and slots that no earlier call used.
+	 */
+	private static final class Probe {
+		final String name;
+		final long maxN;
+		final LongFunction<Integer> call;
+
+		Probe(String name, long maxN, LongFunction<Integer> call) {
+			this.name = name;
+			this.maxN = maxN;
+			this.call = call;
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("delete from appointment");
+		jdbcTemplate.update("delete from patient");
+		jdbcTemplate.update("delete from doctors");
+		jdbcTemplate.update("delete from room");
+		dropCaches();
+	}
+
+	@Test
+	void shouldChartLatencyAgainstTableSize() throws IOException {
+		List<Probe> probes = probes();
+		Map<String, Map<Long, Double>> latencies = new LinkedHashMap<>();
+		probes.forEach(probe -> latencies.put(probe.name, new TreeMap<>()));
+
+		// One unrecorded pass so the first step is not also the JIT warm-up.
+		seedUpTo(steps[0]);
+		probes.forEach(this::call);
+
+		for (long n : steps) {
+			long start = System.nanoTime();
+			seedUpTo(n);
+			long seededAt = System.nanoTime();
+			for (Probe probe : probes) {
+				if (n > probe.maxN) {
+					continue;
+				}
+				latencies.get(probe.name).put(n, medianMillis(probe));
+			}
+			System.out.printf("N=%d seeded in %.1fs, measured in %.1fs%n", n, (seededAt - start) / 1e9,
+					(System.nanoTime() - seededAt) / 1e9);
+		}
+
+		List<String> flagged = report(latencies);
+		System.out.println("Linear or worse: " + flagged);
+		assertThat(latencies.values()).allSatisfy(points -> assertThat(points).isNotEmpty());
+	}
+
+	private double medianMillis(Probe probe) {
+		call(probe);
+		double[] samples = new double[repetitions];
+		for (int i = 0; i < repetitions; i++) {
+			long start = System.nanoTime();
+			int status = call(probe);
+			samples[i] = (System.nanoTime() - start) / 1e6;
+			assertThat(status).as(probe.name).isLessThan(500);
+		}
+		Arrays.sort(samples);
+		return samples[repetitions / 2];
+	}
+
+	private int call(Probe probe) {
+		// Listings would otherwise come out of the response cache after the first call.
+		responseCache.clear();
+		return probe.call.apply(created.incrementAndGet());
+	}
+
+	private List<Probe> probes() {
+		List<Probe> probes = new ArrayList<>();
+		String window = "from=" + SEEDED_FROM + "&to=" + SEEDED_FROM.plusDays(7);
+
+		probes.add(new Probe("GET /appointments", unboundedMax, i -> get("/api/appointments")));
+		probes.add(new Probe("GET /appointments?size=100", Long.MAX_VALUE, i -> get("/api/appointments?size=100")));
+		probes.add(new Probe("GET /appointments/{id}", Long.MAX_VALUE, i -> get("/api/appointments/" + (SEEDED + seeded / 2))));
+		probes.add(new Probe("GET /doctors", unboundedMax, i -> get("/api/doctors")));
+		probes.add(new Probe("GET /doctors?size=100", Long.MAX_VALUE, i -> get("/api/doctors?size=100")));
+		probes.add(new Probe("GET /doctors/{id}", Long.MAX_VALUE, i -> get("/api/doctors/" + (SEEDED + seeded / 2))));
+		probes.add(new Probe("GET /patients", unboundedMax, i -> get("/api/patients")));
+		probes.add(new Probe("GET /patients?size=100", Long.MAX_VALUE, i -> get("/api/patients?size=100")));
+		probes.add(new Probe("GET /patients/{id}", Long.MAX_VALUE, i -> get("/api/patients/" + (SEEDED + seeded / 2))));
+		probes.add(new Probe("GET /rooms", unboundedMax, i -> get("/api/rooms")));
+		probes.add(new Probe("GET /rooms?size=100", Long.MAX_VALUE, i -> get("/api/rooms?size=100")));
+		probes.add(new Probe("GET /rooms/{roomName}", Long.MAX_VALUE, i -> get("/api/rooms/" + roomName(seeded / 2))));
+		probes.add(new Probe("GET /availability/rooms/{roomName}", Long.MAX_VALUE,
+				i -> get("/api/availability/rooms/" + roomName(0) + "?minutes=30&" + window)));
+		probes.add(new Probe("GET /availability/doctors/{id}", Long.MAX_VALUE,
+				i -> get("/api/availability/doctors/" + SEEDED + "?minutes=30&" + window)));
+		probes.add(new Probe("GET /availability/rooms", unboundedMax / 10, i -> get("/api/availability/rooms?" + window)));
+		probes.add(new Probe("GET /cache/stats", Long.MAX_VALUE, i -> get("/api/cache/stats")));
+
+		probes.add(new Probe("POST /appointment", Long.MAX_VALUE, i -> post("/api/appointment",
+				"{\"patient\":{\"id\":" + SEEDED + "},\"doctor\":{\"id\":" + SEEDED + "},"
+						+ "\"room\":{\"roomName\":\"" + roomName(0) + "\"}," + period(bookings.incrementAndGet()) + "}")));
+		probes.add(new Probe("POST /appointments", Long.MAX_VALUE, i -> post("/api/appointments",
+				"{\"patientId\":" + SEEDED + ",\"doctorId\":" + SEEDED + ",\"roomName\":\"" + roomName(0) + "\","
+						+ period(bookings.incrementAndGet()) + "}")));
+		probes.add(new Probe("POST /appointments/batch", Long.MAX_VALUE, i -> {
+			StringBuilder batch = new StringBuilder("[");
+			for (int k = 0; k < 10; k++) {
+				batch.append(k == 0 ? "" : ",").append("{\"doctor\":{\"id\":").append(SEEDED).append("},")
+						.append("\"room\":{\"roomName\":\"").append(roomName(0)).append("\"},")
+						.append(period(bookings.incrementAndGet())).append('}');
+			}
+			return post("/api/appointments/batch", batch.append(']').toString());
+		}));
+		probes.add(new Probe("POST /doctor", Long.MAX_VALUE, i -> post("/api/doctor", person())));
+		probes.add(new Probe("POST /patient", Long.MAX_VALUE, i -> post("/api/patient", person())));
+		probes.add(new Probe("POST /room", Long.MAX_VALUE, i -> post("/api/room", "{\"roomName\":\"new-room-" + i + "\"}")));
+
+		probes.add(new Probe("DELETE /appointments/{id}", Long.MAX_VALUE,
+				i -> delete("/api/appointments/" + (SEEDED + seeded - 1 - deletedAppointments++))));
+		probes.add(new Probe("DELETE /doctors/{id}", Long.MAX_VALUE, i -> delete("/api/doctors/" + idleId())));
+		probes.add(new Probe("DELETE /patients/{id}", Long.MAX_VALUE, i -> delete("/api/patients/" + idleId())));
+		probes.add(new Probe("DELETE /rooms/{roomName}", Long.MAX_VALUE,
+				i -> delete("/api/rooms/" + roomName(seeded - 1 - deletedIdle++))));
+		return probes;
+	}
+
+	// Idle doctors and patients come from the top of the seeded range, well
+	// away from the HOT ones that hold appointments.
+	private long idleId() {
+		return SEEDED + seeded - 1 - deletedIdle++;
+	}
+
+	private static String roomName(long index) {
+		return "Room-" + (SEEDED + index);
+	}
+
+	private static String person() {
+		return "{\"firstName\":\"Perla\",\"lastName\":\"Amalia\",\"age\":24,\"email\":\"p.amalia@hospital.accwe\"}";
+	}
+
+	private static String period(long booking) {
+		LocalDateTime startsAt = BOOKED_FROM.plusMinutes(30 * booking);
+		return "\"startsAt\":\"" + startsAt.format(FORMATTER) + "\",\"finishesAt\":\"" + startsAt.plusMinutes(30).format(FORMATTER) + "\"";
+	}
+
+	private int get(String path) {
+		return exchange(path, HttpMethod.GET, null);
+	}
+
+	private int delete(String path) {
+		return exchange(path, HttpMethod.DELETE, null);
+	}
+
+	private int post(String path, String json) {
+		return exchange(path, HttpMethod.POST, request -> {
+			request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+			request.getBody().write(json.getBytes(StandardCharsets.UTF_8));
+		});
+	}
+
+	// Drains the body without buffering it, so a large listing costs the
+	// client no more than the time to read it.
+	private int exchange(String path, HttpMethod method, RequestCallback callback) {
+		return restTemplate.getRestTemplate().execute(restTemplate.getRootUri() + path, method, callback, response -> {
+			try (InputStream body = response.getBody()) {
+				byte[] buffer = new byte[64 * 1024];
+				while (body.read(buffer) >= 0) {
+					// discard
+				}
+			}
+			return response.getRawStatusCode();
+		});
+	}
+
+	private void seedUpTo(long n) {
+		long from = seeded;
+		insert("insert into patient (id, first_name, last_name, age, email) values (?, ?, ?, ?, ?)", from, n,
+				(statement, i) -> person(statement, i));
+		insert("insert into doctors (id, first_name, last_name, age, email) values (?, ?, ?, ?, ?)", from, n,
+				(statement, i) -> person(statement, i));
+		insert("insert into room (room_name) values (?)", from, n,
+				(statement, i) -> statement.setString(1, roomName(i)));
+		// Appointment i runs in hot room i % HOT with hot doctor and patient
+		// i % HOT, back to back with the previous one in that room.
+		insert("insert into appointment (id, patient_id, doctor_id, room_id, starts_at, finishes_at) values (?, ?, ?, ?, ?, ?)",
+				from, n, (statement, i) -> {
+					LocalDateTime startsAt = SEEDED_FROM.plusMinutes(30 * (i / HOT));
+					statement.setLong(1, SEEDED + i);
+					statement.setLong(2, SEEDED + i % HOT);
+					statement.setLong(3, SEEDED + i % HOT);
+					statement.setString(4, roomName(i % HOT));
+					statement.setTimestamp(5, Timestamp.valueOf(startsAt));
+					statement.setTimestamp(6, Timestamp.valueOf(startsAt.plusMinutes(30)));
+				});
+		seeded = n;
+		dropCaches();
+	}
+
+	private static void person(PreparedStatement statement, long i) throws SQLException {
+		statement.setLong(1, SEEDED + i);
+		statement.setString(2, "Juana");
+		statement.setString(3, "Sosa");
+		statement.setInt(4, 53);
+		statement.setString(5, "jsosa@xmail.com");
+	}
+
+	private interface RowBinder {
+		void bind(PreparedStatement statement, long index) throws SQLException;
+	}
+
+	private void insert(String sql, long from, long to, RowBinder binder) {
+		for (long start = from; start < to; start += BATCH) {
+			long first = start;
+			int size = (int) Math.min(BATCH, to - start);
+			jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+				@Override
+				public void setValues(PreparedStatement statement, int i) throws SQLException {
+					binder.bind(statement, first + i);
+				}
+
+				@Override
+				public int getBatchSize() {
+					return size;
+				}
+			});
+		}
+	}
+
+	// Everything seeded went in behind Hibernate's and the index's back.
+	private void dropCaches() {
+		entityManagerFactory.getCache().evictAll();
+		appointmentIndex.clear();
+		responseCache.clear();
+	}
+
+	private List<String> report(Map<String, Map<Long, Double>> latencies) throws IOException {
+		Files.createDirectories(OUTPUT);
+		StringBuilder csv = new StringBuilder("endpoint,n,median_ms\n");
+		StringBuilder rows = new StringBuilder();
+		List<String> flagged = new ArrayList<>();
+
+		for (Map.Entry<String, Map<Long, Double>> entry : latencies.entrySet()) {
+			Map<Long, Double> points = entry.getValue();
+			points.forEach((n, ms) -> csv.append(String.format("%s,%d,%.3f%n", entry.getKey(), n, ms)));
+
+			double slope = slope(points);
+			boolean linear = points.size() > 1 && slope >= flagSlope;
+			if (linear) {
+				flagged.add(entry.getKey());
+			}
+			rows.append(linear ? "<tr class=\"flagged\">" : "<tr>").append("<td>").append(entry.getKey()).append("</td>");
+			for (long n : steps) {
+				Double ms = points.get(n);
+				rows.append("<td>").append(ms == null ? "&ndash;" : String.format("%.2f", ms)).append("</td>");
+			}
+			rows.append(String.format("<td>%.2f</td><td>%s</td><td>%s</td></tr>%n", slope, linear ? "linear or worse" : "",
+					sparkline(points)));
+		}
+
+		StringBuilder header = new StringBuilder("<tr><th>endpoint</th>");
+		for (long n : steps) {
+			header.append("<th>N=").append(n).append(" (ms)</th>");
+		}
+		header.append("<th>log-log slope</th><th>flag</th><th>latency vs N</th></tr>");
+
+		String html = "<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>Endpoint latency vs table size</title>\n"
+				+ "<style>body{font-family:sans-serif}td,th{padding:2px 8px;text-align:right}td:first-child{text-align:left}"
+				+ ".flagged{background:#fdd}</style></head><body>\n"
+				+ "<h1>Median single-request latency vs rows per table</h1>\n"
+				+ "<p>Flagged when the slope of log(latency) over log(N) is at least " + flagSlope + ".</p>\n"
+				+ "<table>\n" + header + "\n" + rows + "</table></body></html>\n";
+
+		Files.write(OUTPUT.resolve("latency.csv"), csv.toString().getBytes(StandardCharsets.UTF_8));
+		Files.write(OUTPUT.resolve("report.html"), html.getBytes(StandardCharsets.UTF_8));
+		return flagged;
+	}
+
+	// Least-squares slope of log(latency) against log(N).
+	private static double slope(Map<Long, Double> points) {
+		if (points.size() < 2) {
+			return 0;
+		}
+		double sumX = 0, sumY = 0, sumXX = 0, sumXY = 0;
+		for (Map.Entry<Long, Double> point : points.entrySet()) {
+			double x = Math.log(point.getKey());
+			double y = Math.log(Math.max(point.getValue(), 0.001));
+			sumX += x;
+			sumY += y;
+			sumXX += x * x;
+			sumXY += x * y;
+		}
+		int count = points.size();
+		return (count * sumXY - sumX * sumY) / (count * sumXX - sumX * sumX);
+	}
+
+	// A small log-log polyline of the measured points.
+	private String sparkline(Map<Long, Double> points) {
+		if (points.size() < 2) {
+			return "";
+		}
+		double minX = Math.log(steps[0]);
+		double maxX = Math.log(steps[steps.length - 1]);
+		double minY = Math.log(points.values().stream().mapToDouble(Double::doubleValue).min().getAsDouble() + 0.001);
+		double maxY = Math.log(points.values().stream().mapToDouble(Double::doubleValue).max().getAsDouble() + 0.001);
+		StringBuilder polyline = new StringBuilder();
+		for (Map.Entry<Long, Double> point : points.entrySet()) {
+			double x = 4 + 112 * (Math.log(point.getKey()) - minX) / Math.max(maxX - minX, 1e-9);
+			double y = 26 - 22 * (Math.log(point.getValue() + 0.001) - minY) / Math.max(maxY - minY, 1e-9);
+			polyline.append(String.format("%.1f,%.1f ", x, y));
+		}
+		return "<svg width=\"120\" height=\"30\"><polyline fill=\"none\" stroke=\"black\" points=\"" + polyline.toString().trim()
+				+ "\"/></svg>";
+	}
+}
@@ -1,13 +1,28 @@
 package com.example.demo;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.sql.DataSource;
+
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+
 @SpringBootTest
 class DemoApplicationTests {
 
+	@Autowired
+	private DataSource dataSource;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void shouldNotProxyTheDataSourceUnlessQueryStatsAreEnabled() {
+		assertThat(dataSource).isNotInstanceOf(ProxyDataSource.class);
+	}
+
 }
@@ -7,16 +7,20 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 
+import com.example.demo.cache.SecondLevelCacheConfiguration;
 import com.example.demo.repositories.DoctorRepository;
 import com.example.demo.entities.Doctor;
 
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace=Replace.NONE)
+@Import(SecondLevelCacheConfiguration.class)
 class DoctorJpaUnitTest {
 
     @Autowired
@@ -25,6 +29,9 @@ class DoctorJpaUnitTest {
     @Autowired
     DoctorRepository repository;
 
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
     @Test
     void should_find_no_doctors_if_repository_is_empty(){
         Iterable<Doctor> doctors = repository.findAll();
@@ -102,5 +109,17 @@ class DoctorJpaUnitTest {
         repository.deleteAll();
         assertThat(repository.findAll()).isEmpty();
     }
-    
+
+    @Test
+    void should_allocate_doctor_ids_in_blocks_of_fifty(){
+        Long increment = jdbcTemplate.queryForObject(
+                "select increment from information_schema.sequences where sequence_name = 'DOCTOR_SEQ'",
+                Long.class);
+        assertThat(increment).isEqualTo(50L);
+
+        Doctor doc1 = repository.save(new Doctor("Juan","Carlos", 34, "j.carlos@hospital.accwe"));
+        Doctor doc2 = repository.save(new Doctor("Cornelio","Andrea", 59, "c.andrea@hospital.accwe"));
+        assertThat(doc2.getId()).isEqualTo(doc1.getId() + 1);
+    }
+
 }
@@ -1,24 +1,41 @@
 
 package com.example.demo;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import com.example.demo.cache.ResponseCache;
 import com.example.demo.controllers.DoctorController;
 import com.example.demo.controllers.PatientController;
 import com.example.demo.controllers.RoomController;
@@ -28,9 +45,13 @@ import com.example.demo.entities.Room;
 import com.example.demo.repositories.DoctorRepository;
 import com.example.demo.repositories.PatientRepository;
 import com.example.demo.repositories.RoomRepository;
+import com.example.demo.services.DoctorService;
+import com.example.demo.services.PatientService;
+import com.example.demo.services.RoomService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 @WebMvcTest(DoctorController.class)
+@Import({DoctorService.class, ResponseCache.class})
 class DoctorControllerUnitTest {
 
 	@MockBean
@@ -42,6 +63,25 @@ class DoctorControllerUnitTest {
 	@Autowired
 	private ObjectMapper objectMapper;
 
+	@Autowired
+	private ResponseCache responseCache;
+
+	@BeforeEach
+	void resetResponseCache() {
+		responseCache.clear();
+	}
+
+	private static byte[] gunzip(byte[] compressed) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+			byte[] buffer = new byte[4096];
+			for (int n = in.read(buffer); n > 0; n = in.read(buffer)) {
+				out.write(buffer, 0, n);
+			}
+		}
+		return out.toByteArray();
+	}
+
 	@Test
 	void shouldGetAllDoctors() throws Exception {
 		List<Doctor> doctors = Arrays.asList(new Doctor("Marcos", "Corporan", 28, "Mcorporan@hospital.com"),
@@ -53,6 +93,81 @@ class DoctorControllerUnitTest {
 				.andExpect(content().json(objectMapper.writeValueAsString(doctors)));
 	}
 
+	@Test
+	void shouldServeRepeatDoctorListingsFromTheResponseCache() throws Exception {
+		List<Doctor> doctors = Arrays.asList(new Doctor("Marcos", "Corporan", 28, "Mcorporan@hospital.com"));
+
+		when(doctorRepository.findAll()).thenReturn(doctors);
+
+		String first = mockMvc.perform(get("/api/doctors")).andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		mockMvc.perform(get("/api/doctors")).andExpect(status().isOk())
+				.andExpect(content().string(first));
+
+		verify(doctorRepository, times(1)).findAll();
+	}
+
+	@Test
+	void shouldServeGzippedDoctorListingsWhenAccepted() throws Exception {
+		List<Doctor> doctors = Arrays.asList(new Doctor("Marcos", "Corporan", 28, "Mcorporan@hospital.com"));
+
+		when(doctorRepository.findAll()).thenReturn(doctors);
+
+		byte[] body = mockMvc.perform(get("/api/doctors").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+				.andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		assertThat(gunzip(body)).isEqualTo(objectMapper.writeValueAsBytes(doctors));
+	}
+
+	@Test
+	void shouldRefreshDoctorListingsAfterCreate() throws Exception {
+		Doctor doctor = new Doctor("Marcos", "Corporan", 28, "Mcorporan@hospital.com");
+
+		when(doctorRepository.findAll()).thenReturn(Arrays.asList(doctor));
+		mockMvc.perform(get("/api/doctors")).andExpect(jsonPath("$.length()").value(1));
+
+		mockMvc.perform(post("/api/doctor").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(doctor))).andExpect(status().isCreated());
+		when(doctorRepository.findAll()).thenReturn(Arrays.asList(doctor, doctor));
+
+		mockMvc.perform(get("/api/doctors")).andExpect(jsonPath("$.length()").value(2));
+	}
+
+	@Test
+	void shouldGetDoctorsPageByPage() throws Exception {
+		Doctor first = new Doctor("Marcos", "Corporan", 28, "Mcorporan@hospital.com");
+		Doctor second = new Doctor("Hector", "De la Rosa", 52, "Hdelarosa@hospital.com");
+		Doctor third = new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+		first.setId(1);
+		second.setId(2);
+		third.setId(3);
+
+		when(doctorRepository.findByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, 3)))
+				.thenReturn(Arrays.asList(first, second, third));
+		when(doctorRepository.findByIdGreaterThanOrderByIdAsc(2, PageRequest.of(0, 3)))
+				.thenReturn(Arrays.asList(third));
+
+		String page = mockMvc.perform(get("/api/doctors").param("size", "2")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.items.length()").value(2))
+				.andExpect(jsonPath("$.items[1].id").value(2))
+				.andExpect(jsonPath("$.nextCursor").isNotEmpty())
+				.andReturn().getResponse().getContentAsString();
+		String cursor = objectMapper.readTree(page).get("nextCursor").asText();
+
+		mockMvc.perform(get("/api/doctors").param("size", "2").param("cursor", cursor)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.items.length()").value(1))
+				.andExpect(jsonPath("$.items[0].id").value(3))
+				.andExpect(jsonPath("$.nextCursor").doesNotExist());
+	}
+
+	@Test
+	void shouldRejectMalformedDoctorCursor() throws Exception {
+		mockMvc.perform(get("/api/doctors").param("cursor", "not a cursor")).andExpect(status().isBadRequest());
+	}
+
 	@Test
 	void shouldGetDoctorById() throws Exception {
 		Doctor doctor = new Doctor("Marcos", "Corporan", 28, "Mcorporan@hospital.com");
@@ -74,13 +189,23 @@ class DoctorControllerUnitTest {
 	@Test
 	void shouldDeleteDoctorById() throws Exception {
 
-		Doctor existingDoctor = new Doctor("Marcos", "Corporan", 28, "Mcorporan@hospital.com");
-
-		when(doctorRepository.findById(1L)).thenReturn(Optional.of(existingDoctor));
+		when(doctorRepository.deleteInBulkById(1L)).thenReturn(1);
 
 		mockMvc.perform(delete("/api/doctors/1")).andExpect(status().isOk());
 	}
 
+	@Test
+	void shouldNotDeleteMissingDoctor() throws Exception {
+		mockMvc.perform(delete("/api/doctors/1")).andExpect(status().isNotFound());
+	}
+
+	@Test
+	void shouldNotDeleteDoctorWithAppointments() throws Exception {
+		when(doctorRepository.deleteInBulkById(1L)).thenThrow(new DataIntegrityViolationException("doctor_id"));
+
+		mockMvc.perform(delete("/api/doctors/1")).andExpect(status().isConflict());
+	}
+
 	@Test
 	void shouldDeleteAllDoctors() throws Exception {
 		mockMvc.perform(delete("/api/doctors")).andExpect(status().isOk());
@@ -88,6 +213,7 @@ class DoctorControllerUnitTest {
 }
 
 @WebMvcTest(PatientController.class)
+@Import(PatientService.class)
 class PatientControllerUnitTest {
 
 	@MockBean
@@ -131,9 +257,7 @@ class PatientControllerUnitTest {
 	@Test
 	void shouldDeletePatientById() throws Exception {
 
-		Patient existingPatient = new Patient("Juana", "Sosa", 53, "jsosa@hospital.com");
-
-		when(patientRepository.findById(1L)).thenReturn(Optional.of(existingPatient));
+		when(patientRepository.deleteInBulkById(1L)).thenReturn(1);
 
 		mockMvc.perform(delete("/api/patients/1")).andExpect(status().isOk());
 	}
@@ -145,6 +269,7 @@ class PatientControllerUnitTest {
 }
 
 @WebMvcTest(RoomController.class)
+@Import({RoomService.class, ResponseCache.class})
 class RoomControllerUnitTest {
 
 	@MockBean
@@ -156,6 +281,14 @@ class RoomControllerUnitTest {
 	@Autowired
 	private ObjectMapper objectMapper;
 
+	@Autowired
+	private ResponseCache responseCache;
+
+	@BeforeEach
+	void resetResponseCache() {
+		responseCache.clear();
+	}
+
 	@Test
 	void shouldGetAllRooms() throws Exception {
 		List<Room> rooms = Arrays.asList(new Room("gynecology"), new Room("dermatology"));
@@ -166,6 +299,36 @@ class RoomControllerUnitTest {
 				.andExpect(content().json(objectMapper.writeValueAsString(rooms)));
 	}
 
+	@Test
+	void shouldRefreshRoomListingsAfterDelete() throws Exception {
+		when(roomRepository.findAll()).thenReturn(Arrays.asList(new Room("gynecology"), new Room("dermatology")));
+		mockMvc.perform(get("/api/rooms")).andExpect(jsonPath("$.length()").value(2));
+
+		when(roomRepository.deleteInBulkByRoomName("dermatology")).thenReturn(1);
+		mockMvc.perform(delete("/api/rooms/dermatology")).andExpect(status().isOk());
+		when(roomRepository.findAll()).thenReturn(Arrays.asList(new Room("gynecology")));
+
+		mockMvc.perform(get("/api/rooms")).andExpect(jsonPath("$.length()").value(1));
+		verify(roomRepository, times(2)).findAll();
+	}
+
+	@Test
+	void shouldGetRoomsPageByPage() throws Exception {
+		when(roomRepository.findByRoomNameGreaterThanOrderByRoomNameAsc("", PageRequest.of(0, 2)))
+				.thenReturn(Arrays.asList(new Room("dermatology"), new Room("gynecology")));
+		when(roomRepository.findByRoomNameGreaterThanOrderByRoomNameAsc("dermatology", PageRequest.of(0, 2)))
+				.thenReturn(Arrays.asList(new Room("gynecology")));
+
+		String page = mockMvc.perform(get("/api/rooms").param("size", "1")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.items[0].roomName").value("dermatology"))
+				.andReturn().getResponse().getContentAsString();
+		String cursor = objectMapper.readTree(page).get("nextCursor").asText();
+
+		mockMvc.perform(get("/api/rooms").param("size", "1").param("cursor", cursor)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.items[0].roomName").value("gynecology"))
+				.andExpect(jsonPath("$.nextCursor").doesNotExist());
+	}
+
 	@Test
 	void shouldGetRoomByRoomName() throws Exception {
 		Room room = new Room("gynecology");
@@ -187,13 +350,18 @@ class RoomControllerUnitTest {
 	@Test
 	void shouldDeleteRoomByRoomName() throws Exception {
 
-		Room existingRoom = new Room("dermatology");
-
-		when(roomRepository.findByRoomName("dermatology")).thenReturn(Optional.of(existingRoom));
+		when(roomRepository.deleteInBulkByRoomName("dermatology")).thenReturn(1);
 
 		mockMvc.perform(delete("/api/rooms/dermatology")).andExpect(status().isOk());
 	}
 
+	@Test
+	void shouldNotDeleteAllRoomsWhileBooked() throws Exception {
+		doThrow(new DataIntegrityViolationException("room_id")).when(roomRepository).deleteAllInBatch();
+
+		mockMvc.perform(delete("/api/rooms")).andExpect(status().isConflict());
+	}
+
 	@Test
 	void shouldDeleteAllRooms() throws Exception {
 		mockMvc.perform(delete("/api/rooms")).andExpect(status().isOk());
@@ -0,0 +1,139 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.entities.Appointment;
+import com.example.demo.entities.Doctor;
+import com.example.demo.entities.Patient;
+import com.example.demo.entities.Room;
+
+/**
+ * Loads every appointment as a managed entity in a read-write transaction,
+ * reschedules one of them and commits, the unit of work of an
+ * appointment-heavy write. Prints the JDBC statements, bytes allocated and
+ * median time per unit of work.
+ *
+ * With the build-time enhanced entities the patient, doctor and room stay
+ * unloaded and the flush only looks at the entities whose setters ran; run
+ * it on a build without the hibernate-enhance-maven-plugin to compare.
+ *
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class EntityEnhancementBenchmarkTest {
+
+	private static final int ROWS = 10_000;
+	private static final int WARMUP = 5;
+	private static final int RUNS = 20;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@BeforeEach
+	void seed() {
+		transactionTemplate.executeWithoutResult(status -> {
+			Room[] rooms = new Room[20];
+			for (int i = 0; i < rooms.length; i++) {
+				rooms[i] = new Room("Room " + i);
+				entityManager.persist(rooms[i]);
+			}
+			Doctor[] doctors = new Doctor[50];
+			for (int i = 0; i < doctors.length; i++) {
+				doctors[i] = new Doctor("Perla", "Amalia", 40, "p.amalia" + i + "@hospital.accwe");
+				entityManager.persist(doctors[i]);
+			}
+			Patient[] patients = new Patient[500];
+			for (int i = 0; i < patients.length; i++) {
+				patients[i] = new Patient("Jose Luis", "Olaya", 37, "j.olaya" + i + "@email.com");
+				entityManager.persist(patients[i]);
+			}
+			LocalDateTime start = LocalDateTime.of(2023, 4, 24, 8, 0);
+			for (int i = 0; i < ROWS; i++) {
+				LocalDateTime startsAt = start.plusMinutes(30L * i);
+				entityManager.persist(new Appointment(patients[i % patients.length], doctors[i % doctors.length],
+						rooms[i % rooms.length], startsAt, startsAt.plusMinutes(30)));
+				if (i % 50 == 49) {
+					entityManager.flush();
+				}
+			}
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("delete from room_slot");
+		jdbcTemplate.update("delete from appointment");
+		jdbcTemplate.update("delete from patient");
+		jdbcTemplate.update("delete from doctors");
+		jdbcTemplate.update("delete from room");
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@Test
+	void shouldLoadAndFlushAppointments() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		for (int i = 0; i < WARMUP; i++) {
+			reschedule();
+		}
+
+		statistics.clear();
+		long[] nanos = new long[RUNS];
+		long bytesBefore = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+		for (int i = 0; i < RUNS; i++) {
+			long begin = System.nanoTime();
+			reschedule();
+			nanos[i] = System.nanoTime() - begin;
+		}
+		long bytes = (threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - bytesBefore) / RUNS;
+		Arrays.sort(nanos);
+
+		boolean enhanced = SelfDirtinessTracker.class.isAssignableFrom(Appointment.class);
+		System.out.printf("enhanced=%s rows=%d statements/run=%.1f allocated_mb/run=%.1f median_ms=%.1f%n",
+				enhanced, ROWS, statistics.getPrepareStatementCount() / (double) RUNS, bytes / 1e6, nanos[RUNS / 2] / 1e6);
+
+		assertThat(statistics.getEntityUpdateCount()).isEqualTo(RUNS);
+	}
+
+	private void reschedule() {
+		transactionTemplate.executeWithoutResult(status -> {
+			List<Appointment> appointments = entityManager
+					.createQuery("select a from Appointment a", Appointment.class)
+					.getResultList();
+			assertThat(appointments).hasSize(ROWS);
+			Appointment first = appointments.get(0);
+			first.setFinishesAt(first.getFinishesAt().plusMinutes(first.getFinishesAt().getMinute() == 0 ? 30 : -30));
+		});
+	}
+}
@@ -15,7 +15,9 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
 
+import com.example.demo.cache.SecondLevelCacheConfiguration;
 import com.example.demo.entities.Appointment;
 import com.example.demo.entities.Doctor;
 import com.example.demo.entities.Patient;
@@ -23,6 +25,7 @@ import com.example.demo.entities.Room;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import(SecondLevelCacheConfiguration.class)
 @TestInstance(Lifecycle.PER_CLASS)
 class EntityUnitTest {
 
@@ -272,6 +275,43 @@ class EntityUnitTest {
 		assertTrue(a1.overlaps(a2));
 	}
 
+	@Test
+	void testAppointmentOverlapsWhenContainingAnother() throws Exception {
+
+		d1 = new Doctor("Marcos", "Corporan", 28, "Mcorporan@hospital.com");
+		p1 = new Patient("Juana", "Sosa", 53, "jsosa@xmail.com");
+		r1 = new Room("gynecology");
+
+		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+
+		LocalDateTime startsAtA = LocalDateTime.parse("19:30 22/10/2023", formatter);
+		LocalDateTime finishesAtA = LocalDateTime.parse("20:00 22/10/2023", formatter);
+		LocalDateTime startsAtB = LocalDateTime.parse("19:00 22/10/2023", formatter);
+		LocalDateTime finishesAtB = LocalDateTime.parse("20:30 22/10/2023", formatter);
+
+		a1 = new Appointment(p1, d1, r1, startsAtA, finishesAtA);
+		a2 = new Appointment(p1, d1, r1, startsAtB, finishesAtB);
+
+		assertTrue(a1.overlaps(a2));
+		assertTrue(a2.overlaps(a1));
+	}
+
+	@Test
+	void testAppointmentOverlapsOnlyInTheSameRoom() throws Exception {
+		d1 = new Doctor("Marcos", "Corporan", 28, "Mcorporan@hospital.com");
+		p1 = new Patient("Juana", "Sosa", 53, "jsosa@xmail.com");
+
+		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+
+		LocalDateTime startsAt = LocalDateTime.parse("19:30 22/10/2023", formatter);
+		LocalDateTime finishesAt = LocalDateTime.parse("20:30 22/10/2023", formatter);
+
+		a1 = new Appointment(p1, d1, new Room("gynecology"), startsAt, finishesAt);
+		a2 = new Appointment(p1, d1, new Room("oncology"), startsAt, finishesAt);
+
+		assertFalse(a1.overlaps(a2));
+	}
+
 	@Test
 	void testAppointmentOverlaps() throws Exception {
 		d1 = new Doctor("Marcos", "Corporan", 28, "Mcorporan@hospital.com");
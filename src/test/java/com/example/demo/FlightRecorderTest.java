@@ -0,0 +1,114 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.jfr.JfrLatencyReport;
+import com.example.demo.scheduling.AppointmentIndex;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Records a few requests with the bundled hospital.jfc and checks the
+ * application's events and the offline report built from them.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class FlightRecorderTest {
+
+	private static final String APPOINTMENT = "{\"patient\":{\"firstName\":\"Juana\",\"lastName\":\"Sosa\",\"age\":53,"
+			+ "\"email\":\"jsosa@xmail.com\"},\"doctor\":{\"firstName\":\"Marcos\",\"lastName\":\"Corporan\",\"age\":28,"
+			+ "\"email\":\"Mcorporan@hospital.com\"},\"room\":{\"roomName\":\"recorded\"},"
+			+ "\"startsAt\":\"19:30 24/04/2031\",\"finishesAt\":\"20:00 24/04/2031\"}";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private AppointmentIndex appointmentIndex;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@TempDir
+	Path tempDir;
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("delete from room_slot");
+		jdbcTemplate.update("delete from appointment");
+		jdbcTemplate.update("delete from patient");
+		jdbcTemplate.update("delete from doctors");
+		jdbcTemplate.update("delete from room");
+		appointmentIndex.clear();
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@Test
+	void shouldRecordBookingsChecksAndRepositoryCalls() throws Exception {
+		Path recorded = tempDir.resolve("hospital.jfr");
+		try (Reader jfc = new InputStreamReader(getClass().getResourceAsStream("/jfr/hospital.jfc"), StandardCharsets.UTF_8);
+				Recording recording = new Recording(Configuration.create(jfc))) {
+			// Below the bundled thresholds on a fast machine; record them all here.
+			recording.enable("com.example.demo.OverlapCheck").withThreshold(Duration.ZERO);
+			recording.enable("com.example.demo.RepositoryCall").withThreshold(Duration.ZERO);
+			recording.start();
+
+			mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON).content(APPOINTMENT))
+					.andExpect(status().isOk());
+			mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON).content(APPOINTMENT))
+					.andExpect(status().isNotAcceptable());
+			mockMvc.perform(get("/api/appointments/123456789")).andExpect(status().isNotFound());
+
+			recording.stop();
+			recording.dump(recorded);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(recorded).stream()
+				.filter(event -> event.getEventType().getName().startsWith("com.example.demo."))
+				.collect(Collectors.toList());
+		assertThat(events).filteredOn(event -> event.getEventType().getName().equals("com.example.demo.Booking"))
+				.extracting(event -> event.getString("room") + " " + event.getString("outcome") + " " + event.getString("conflict"))
+				.containsExactly("recorded OK null", "recorded NOT_ACCEPTABLE ROOM");
+		assertThat(events).filteredOn(event -> event.getEventType().getName().equals("com.example.demo.OverlapCheck"))
+				.extracting(event -> event.getInt("candidates"))
+				.containsExactly(0, 1);
+
+		String report = JfrLatencyReport.summarize(recorded);
+		assertThat(report)
+				.contains("POST /api/appointment\n  count=2 p50=")
+				.contains("GET /api/appointments/{id}\n  count=1")
+				.contains("POST /api/appointment NOT_ACCEPTABLE\n  count=1")
+				.contains("conflict ROOM\n  count=1")
+				.contains("AppointmentRepository.book\n  count=1")
+				.containsPattern("<= \\S+ ms +\\|#+ +1");
+	}
+}
@@ -0,0 +1,79 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.entities.Patient;
+
+/**
+ * Bulk-loads patients with JDBC batching switched off (batch size 1, the old
+ * behaviour) and at the configured batch size, and prints inserts/sec and
+ * JDBC statements per row for each. Ids come from the pooled patient_seq in
+ * both runs, one sequence call per 50 rows.
+ *
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class InsertThroughputBenchmarkTest {
+
+	private static final int ROWS = 20_000;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("delete from patient");
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 50 })
+	void shouldInsertPatientsInBatches(int batchSize) {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		long begin = System.nanoTime();
+		transactionTemplate.executeWithoutResult(status -> {
+			entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+			for (int i = 0; i < ROWS; i++) {
+				entityManager.persist(new Patient("Jose Luis", "Olaya", 37, "j.olaya" + i + "@email.com"));
+				if (i % 50 == 49) {
+					entityManager.flush();
+					entityManager.clear();
+				}
+			}
+		});
+		double seconds = (System.nanoTime() - begin) / 1e9;
+
+		System.out.printf("batch_size=%d rows=%d inserts/sec=%.0f statements/row=%.3f%n",
+				batchSize, ROWS, ROWS / seconds, statistics.getPrepareStatementCount() / (double) ROWS);
+
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(ROWS);
+	}
+}
@@ -0,0 +1,82 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.demo.jfr.JfrLatencyReport;
+import com.example.demo.jfr.OverlapCheckEvent;
+
+import jdk.jfr.Recording;
+
+/**
+ * Summarizes a short recording of overlap checks with two clearly separated
+ * latencies: five that end right away and five that sleep well past 100 ms.
+ */
+class JfrLatencyReportUnitTest {
+
+	private static final Pattern SUMMARY = Pattern.compile(
+			"conflict NONE\n  count=(\\d+) p50=(\\S+) ms p90=(\\S+) ms p99=(\\S+) ms max=(\\S+) ms\n");
+	private static final Pattern BUCKET = Pattern.compile("(?m)^  (<=|> ) *(\\S+) ms +\\|#* +(\\d+)$");
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void shouldReportNearestRankPercentilesAndBuckets() throws Exception {
+		Path recorded = tempDir.resolve("checks.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(OverlapCheckEvent.class).withThreshold(Duration.ZERO);
+			recording.start();
+			for (int i = 0; i < 5; i++) {
+				check(0);
+				check(120);
+			}
+			recording.stop();
+			recording.dump(recorded);
+		}
+
+		String report = JfrLatencyReport.summarize(recorded);
+
+		Matcher summary = SUMMARY.matcher(report);
+		assertThat(summary.find()).as(report).isTrue();
+		assertThat(summary.group(1)).isEqualTo("10");
+		// Nearest rank: p50 is the 5th of 10, the slowest fast check, where an
+		// interpolated median would fall halfway between the two groups.
+		assertThat(Double.parseDouble(summary.group(2))).isLessThan(1);
+		assertThat(Double.parseDouble(summary.group(3))).isGreaterThanOrEqualTo(120);
+		assertThat(summary.group(4)).isEqualTo(summary.group(5));
+
+		int fast = 0;
+		int slow = 0;
+		Matcher bucket = BUCKET.matcher(report.substring(summary.end()));
+		while (bucket.find()) {
+			double bound = Double.parseDouble(bucket.group(2));
+			int count = Integer.parseInt(bucket.group(3));
+			if (bucket.group(1).equals("<=") && bound <= 1) {
+				fast += count;
+			} else if (bucket.group(1).equals("<=") && bound == 250) {
+				slow += count;
+			}
+		}
+		assertThat(fast).isEqualTo(5);
+		assertThat(slow).isEqualTo(5);
+
+		assertThat(report).contains("== Requests ==\n(no events)");
+	}
+
+	private static void check(long sleepMillis) throws InterruptedException {
+		OverlapCheckEvent event = OverlapCheckEvent.begin("recorded");
+		if (sleepMillis > 0) {
+			Thread.sleep(sleepMillis);
+		}
+		event.end();
+		event.commit(0, "NONE");
+	}
+}
@@ -0,0 +1,60 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.example.demo.scheduling.RoomTimeline;
+
+/**
+ * Memory budget of the room occupancy bitmaps: books one appointment per day
+ * for 1,000 rooms over 365 days at several cell lengths and prints the
+ * payload size next to the measured heap growth, which also counts the
+ * sorted intervals and the map entries holding each day.
+ *
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class OccupancyMemoryReportTest {
+
+	private static final int ROOMS = 1_000;
+	private static final int DAYS = 365;
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 5, 15, 60 })
+	void shouldReportFootprintPerThousandRoomsAndYear(int minutesPerCell) {
+		LocalDateTime first = LocalDateTime.of(2023, 1, 1, 9, 0);
+		long before = usedHeap();
+
+		List<RoomTimeline> rooms = new ArrayList<>(ROOMS);
+		for (int room = 0; room < ROOMS; room++) {
+			RoomTimeline timeline = new RoomTimeline(minutesPerCell);
+			for (int day = 0; day < DAYS; day++) {
+				LocalDateTime startsAt = first.plusDays(day);
+				timeline.add(startsAt, startsAt.plusMinutes(30));
+			}
+			rooms.add(timeline);
+		}
+
+		long measured = usedHeap() - before;
+		long payload = (long) ROOMS * DAYS * RoomTimeline.bytesPerDay(minutesPerCell);
+		System.out.printf("cell=%dmin room-days=%d bitmap payload=%.1fMB (%dB/day) heap incl. intervals=%.1fMB%n",
+				minutesPerCell, ROOMS * DAYS, payload / 1e6, RoomTimeline.bytesPerDay(minutesPerCell), measured / 1e6);
+
+		assertThat(rooms).allSatisfy(timeline -> assertThat(timeline.days()).isEqualTo(DAYS));
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,71 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.scheduling.AppointmentIndex;
+
+@SpringBootTest(properties = "management.endpoints.web.exposure.include=prometheus")
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+class PrometheusMetricsTest {
+
+	private static final String APPOINTMENT = "{\"patient\":{\"firstName\":\"Juana\",\"lastName\":\"Sosa\",\"age\":53,"
+			+ "\"email\":\"jsosa@xmail.com\"},\"doctor\":{\"firstName\":\"Marcos\",\"lastName\":\"Corporan\",\"age\":28,"
+			+ "\"email\":\"Mcorporan@hospital.com\"},\"room\":{\"roomName\":\"metrics\"},"
+			+ "\"startsAt\":\"19:30 24/04/2031\",\"finishesAt\":\"20:00 24/04/2031\"}";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private AppointmentIndex appointmentIndex;
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("delete from room_slot");
+		jdbcTemplate.update("delete from appointment");
+		jdbcTemplate.update("delete from patient");
+		jdbcTemplate.update("delete from doctors");
+		jdbcTemplate.update("delete from room");
+		appointmentIndex.clear();
+	}
+
+	@Test
+	void shouldExposeHandlerRepositoryBookingAndPoolMetrics() throws Exception {
+		mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON).content(APPOINTMENT))
+				.andExpect(status().isOk());
+		mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON).content(APPOINTMENT))
+				.andExpect(status().isNotAcceptable());
+		mockMvc.perform(get("/api/appointments/123456789")).andExpect(status().isNotFound());
+
+		String scrape = mockMvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		assertThat(scrape)
+				.containsPattern("http_server_requests_seconds_count\\{[^}]*status_name=\"NOT_ACCEPTABLE\"[^}]*uri=\"/api/appointment\"")
+				.containsPattern("http_server_requests_seconds_count\\{[^}]*status_name=\"NOT_FOUND\"[^}]*uri=\"/api/appointments/\\{id\\}\"")
+				.containsPattern("spring_data_repository_invocations_seconds_count\\{[^}]*method=\"findById\""
+						+ "[^}]*repository=\"AppointmentRepository\"")
+				.containsPattern("booking_overlap_check_seconds_count\\{conflict=\"none\",\\} 1\\.0")
+				.containsPattern("booking_overlap_check_seconds_count\\{conflict=\"room\",\\} 1\\.0")
+				.contains("booking_overlap_check_last_seconds")
+				.contains("hikaricp_connections_active");
+	}
+}
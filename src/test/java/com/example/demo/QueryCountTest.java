@@ -0,0 +1,134 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.entities.Appointment;
+import com.example.demo.entities.Doctor;
+import com.example.demo.entities.Patient;
+import com.example.demo.entities.Room;
+import com.example.demo.metrics.QueryStatsFilter;
+import com.example.demo.repositories.AppointmentRepository;
+import com.example.demo.repositories.DoctorRepository;
+import com.example.demo.repositories.PatientRepository;
+import com.example.demo.repositories.RoomRepository;
+import com.example.demo.scheduling.AppointmentIndex;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Upper bounds on the statements each read endpoint runs, with every
+ * appointment on its own patient, doctor and room and the second-level
+ * cache empty, so an N+1 shows up as N extra statements.
+ */
+@SpringBootTest(properties = { "api.query-stats.enabled=true", "api.query-stats.rows-read=true" })
+@AutoConfigureMockMvc
+class QueryCountTest {
+
+	private static final int APPOINTMENTS = 10;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private PatientRepository patientRepository;
+
+	@Autowired
+	private DoctorRepository doctorRepository;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private AppointmentIndex appointmentIndex;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private long firstId;
+
+	@BeforeEach
+	void setUp() {
+		LocalDateTime startsAt = LocalDateTime.of(2031, 4, 24, 9, 0);
+		for (int i = 0; i < APPOINTMENTS; i++) {
+			Patient patient = patientRepository.save(new Patient("Juana", "Sosa", 53, "jsosa" + i + "@xmail.com"));
+			Doctor doctor = doctorRepository.save(new Doctor("Marcos", "Corporan", 28, "mcorporan" + i + "@hospital.com"));
+			Room room = roomRepository.save(new Room("room-" + i));
+			Appointment appointment = appointmentRepository.save(
+					new Appointment(patient, doctor, room, startsAt, startsAt.plusMinutes(30)));
+			if (i == 0) {
+				firstId = appointment.getId();
+			}
+		}
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("delete from appointment");
+		jdbcTemplate.update("delete from patient");
+		jdbcTemplate.update("delete from doctors");
+		jdbcTemplate.update("delete from room");
+		entityManagerFactory.getCache().evictAll();
+		appointmentIndex.clear();
+	}
+
+	@Test
+	void shouldListAppointmentsWithOneStatement() throws Exception {
+		mockMvc.perform(get("/api/appointments"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(APPOINTMENTS))
+				.andExpect(header().string(QueryStatsFilter.COUNT_HEADER, "1"))
+				.andExpect(header().string(QueryStatsFilter.ROWS_HEADER, String.valueOf(APPOINTMENTS)))
+				.andExpect(header().exists(QueryStatsFilter.TIME_HEADER))
+				.andExpect(QueryCounts.atMost(1));
+	}
+
+	@Test
+	void shouldKeepEveryReadEndpointFreeOfNPlusOne() throws Exception {
+		mockMvc.perform(get("/api/appointments").param("size", "5")).andExpect(QueryCounts.atMost(1));
+		mockMvc.perform(get("/api/appointments/" + firstId)).andExpect(QueryCounts.atMost(1));
+		mockMvc.perform(get("/api/patients")).andExpect(QueryCounts.atMost(1));
+		mockMvc.perform(get("/api/doctors")).andExpect(QueryCounts.atMost(1));
+		mockMvc.perform(get("/api/rooms")).andExpect(QueryCounts.atMost(1));
+	}
+
+	@Test
+	void shouldCountRowsWrittenAndRecordMetrics() throws Exception {
+		mockMvc.perform(delete("/api/appointments/" + firstId))
+				.andExpect(status().isOk())
+				.andExpect(header().string(QueryStatsFilter.ROWS_HEADER, "2"));
+
+		DistributionSummary statements = meterRegistry.find("sql.request.statements")
+				.tags("method", "DELETE", "uri", "/api/appointments/{id}").summary();
+		assertThat(statements).isNotNull();
+		assertThat(statements.totalAmount()).isEqualTo(2);
+	}
+}
@@ -0,0 +1,31 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import com.example.demo.metrics.QueryStats;
+
+/**
+ * MockMvc matchers on the JDBC work of a request, as counted by the
+ * QueryStatsFilter. Counts include statements run while the body was
+ * written, which the response headers cannot.
+ *
+ *   mockMvc.perform(get("/api/appointments")).andExpect(QueryCounts.atMost(1));
+ */
+final class QueryCounts {
+
+	private QueryCounts() {
+	}
+
+	static ResultMatcher atMost(int statements) {
+		return result -> assertThat(statsOf(result.getRequest().getAttribute(QueryStats.ATTRIBUTE)).getStatements())
+				.as("statements run by %s %s", result.getRequest().getMethod(), result.getRequest().getRequestURI())
+				.isLessThanOrEqualTo(statements);
+	}
+
+	private static QueryStats statsOf(Object attribute) {
+		assertThat(attribute).as("query stats; is the QueryStatsFilter registered?").isInstanceOf(QueryStats.class);
+		return (QueryStats) attribute;
+	}
+}
@@ -0,0 +1,133 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.entities.Appointment;
+import com.example.demo.entities.Doctor;
+import com.example.demo.entities.Patient;
+import com.example.demo.entities.Room;
+import com.example.demo.services.AppointmentService;
+
+/**
+ * Lists every appointment the way the controllers did before the service
+ * layer, in a read-write transaction that keeps a snapshot of each entity and
+ * dirty-checks them all at commit, and through AppointmentService, whose
+ * read-only transaction does neither. Prints the bytes allocated and the
+ * median time per listing for each.
+ *
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest
+class ReadOnlyListingBenchmarkTest {
+
+	private static final int ROWS = 10_000;
+	private static final int WARMUP = 5;
+	private static final int RUNS = 20;
+
+	@Autowired
+	private AppointmentService appointmentService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@BeforeEach
+	void seed() {
+		transactionTemplate.executeWithoutResult(status -> {
+			Room[] rooms = new Room[20];
+			for (int i = 0; i < rooms.length; i++) {
+				rooms[i] = new Room("Room " + i);
+				entityManager.persist(rooms[i]);
+			}
+			Doctor[] doctors = new Doctor[50];
+			for (int i = 0; i < doctors.length; i++) {
+				doctors[i] = new Doctor("Perla", "Amalia", 40, "p.amalia" + i + "@hospital.accwe");
+				entityManager.persist(doctors[i]);
+			}
+			Patient[] patients = new Patient[500];
+			for (int i = 0; i < patients.length; i++) {
+				patients[i] = new Patient("Jose Luis", "Olaya", 37, "j.olaya" + i + "@email.com");
+				entityManager.persist(patients[i]);
+			}
+			LocalDateTime start = LocalDateTime.of(2023, 4, 24, 8, 0);
+			for (int i = 0; i < ROWS; i++) {
+				LocalDateTime startsAt = start.plusMinutes(30L * i);
+				entityManager.persist(new Appointment(patients[i % patients.length], doctors[i % doctors.length],
+						rooms[i % rooms.length], startsAt, startsAt.plusMinutes(30)));
+				if (i % 50 == 49) {
+					entityManager.flush();
+				}
+			}
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("delete from room_slot");
+		jdbcTemplate.update("delete from appointment");
+		jdbcTemplate.update("delete from patient");
+		jdbcTemplate.update("delete from doctors");
+		jdbcTemplate.update("delete from room");
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@Test
+	void shouldListWithLessChurnReadOnly() {
+		long readWrite = measure("read-write", () -> transactionTemplate.execute(status -> entityManager.createQuery(
+				"select a from Appointment a left join fetch a.patient left join fetch a.doctor left join fetch a.room",
+				Appointment.class).getResultList()));
+		long readOnly = measure("read-only", appointmentService::findAll);
+
+		assertThat(readOnly).isLessThan(readWrite);
+	}
+
+	// Bytes allocated per listing.
+	private static long measure(String mode, Supplier<List<Appointment>> listing) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		for (int i = 0; i < WARMUP; i++) {
+			assertThat(listing.get()).hasSize(ROWS);
+		}
+
+		long[] nanos = new long[RUNS];
+		long bytesBefore = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+		for (int i = 0; i < RUNS; i++) {
+			long begin = System.nanoTime();
+			listing.get();
+			nanos[i] = System.nanoTime() - begin;
+		}
+		long bytes = (threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - bytesBefore) / RUNS;
+		Arrays.sort(nanos);
+
+		System.out.printf("mode=%s rows=%d allocated_mb/listing=%.1f median_ms=%.1f%n",
+				mode, ROWS, bytes / 1e6, nanos[RUNS / 2] / 1e6);
+		return bytes;
+	}
+}
@@ -0,0 +1,77 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.demo.cache.ResponseCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ResponseCacheUnitTest {
+
+	private ResponseCache responseCache;
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@BeforeEach
+	void setUp() {
+		responseCache = new ResponseCache(new ObjectMapper());
+		ReflectionTestUtils.setField(responseCache, "ttlSeconds", 30L);
+		ReflectionTestUtils.setField(responseCache, "maxEntries", 2);
+	}
+
+	private ResponseEntity<?> serve(String query, String acceptEncoding) {
+		return responseCache.serve("rooms", query, acceptEncoding, () -> {
+			loads.incrementAndGet();
+			return new ResponseEntity<>(Arrays.asList(query), HttpStatus.OK);
+		});
+	}
+
+	@Test
+	void shouldKeepCachingNewQueriesOnceFull() {
+		serve("a", null);
+		serve("b", null);
+		serve("c", null);
+		serve("c", null);
+
+		assertThat(loads).hasValue(3);
+	}
+
+	@Test
+	void shouldEvictTheLeastRecentlyServedQuery() {
+		serve("a", null);
+		serve("b", null);
+		serve("a", null);
+		serve("c", null);
+		loads.set(0);
+
+		serve("a", null);
+		assertThat(loads).hasValue(0);
+		serve("b", null);
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	void shouldHonourGzipQValues() {
+		assertThat(serve("a", "gzip, deflate").getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+		assertThat(serve("a", "gzip;q=0.5").getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+		assertThat(serve("a", "*").getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+		assertThat(serve("a", "gzip;q=0").getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+		assertThat(serve("a", "gzip; Q=0.000, *").getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+		assertThat(serve("a", "deflate, *;q=0").getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+		assertThat(serve("a", "identity").getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+	}
+
+	@Test
+	void shouldVaryOnAcceptEncoding() {
+		assertThat(serve("a", null).getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+		assertThat(serve("a", "gzip").getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+	}
+}
@@ -2,21 +2,28 @@ package com.example.demo;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
 
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 
+import com.example.demo.cache.SecondLevelCacheConfiguration;
 import com.example.demo.repositories.RoomRepository;
+import com.example.demo.entities.Appointment;
+import com.example.demo.entities.Doctor;
+import com.example.demo.entities.Patient;
 import com.example.demo.entities.Room;
 
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace=Replace.NONE)
+@Import(SecondLevelCacheConfiguration.class)
 class RoomJpaUnitTest {
 
     @Autowired
@@ -31,6 +38,29 @@ class RoomJpaUnitTest {
         assertThat(rooms).isEmpty();
     }
 
+    @Test
+    void should_find_rooms_free_between_two_times(){
+        Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
+        Doctor doctor = new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+        Room dermatology = new Room("Dermatology");
+        Room emergencies = new Room("Emergencies");
+        Room operations = new Room("Operations");
+        entityManager.persist(patient);
+        entityManager.persist(doctor);
+        entityManager.persist(dermatology);
+        entityManager.persist(emergencies);
+        entityManager.persist(operations);
+        LocalDateTime nine = LocalDateTime.of(2023, 4, 24, 9, 0);
+        entityManager.persist(new Appointment(patient, doctor, dermatology, nine, nine.plusHours(1)));
+        // Reversed, so it occupies nothing.
+        entityManager.persist(new Appointment(patient, doctor, operations, nine.plusHours(1), nine));
+
+        assertThat(repository.findRoomNamesFreeBetween(nine.plusMinutes(30), nine.plusMinutes(90)))
+                .containsExactly("Emergencies", "Operations");
+        assertThat(repository.findRoomNamesFreeBetween(nine.plusHours(1), nine.plusHours(2)))
+                .containsExactly("Dermatology", "Emergencies", "Operations");
+    }
+
     @Test
     void should_create_a_room(){
         Room room = repository.save(new Room("Dermatology"));
@@ -99,5 +129,13 @@ class RoomJpaUnitTest {
         repository.deleteAll();
         assertThat(repository.findAll()).isEmpty();
     }
-    
+
+    @Test
+    void should_list_room_names_in_order(){
+        entityManager.persist(new Room("Operations"));
+        entityManager.persist(new Room("Dermatology"));
+
+        assertThat(repository.findAllRoomNames()).containsExactly("Dermatology", "Operations");
+    }
+
 }
@@ -0,0 +1,342 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.controllers.AppointmentController;
+import com.example.demo.entities.Appointment;
+import com.example.demo.entities.Doctor;
+import com.example.demo.entities.Patient;
+import com.example.demo.entities.Room;
+import com.example.demo.repositories.AppointmentRepository;
+import com.example.demo.repositories.DoctorRepository;
+import com.example.demo.scheduling.AppointmentIndex;
+import com.example.demo.scheduling.BookingResult;
+import com.example.demo.scheduling.ScheduleResource;
+import com.example.demo.scheduling.SlotConflictException;
+
+/**
+ * Books straight through the repository, the way another instance with its
+ * own empty in-memory index would, so only the room, doctor and patient slot
+ * keys stand between two conflicting appointments.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class RoomSlotReservationTest {
+
+	private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private DoctorRepository doctorRepository;
+
+	@Autowired
+	private AppointmentController appointmentController;
+
+	@Autowired
+	private AppointmentIndex appointmentIndex;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private long patientId;
+	private long doctorId;
+
+	@BeforeEach
+	void setUp() {
+		transactionTemplate.executeWithoutResult(status -> {
+			Patient patient = new Patient("Juana", "Sosa", 53, "jsosa@xmail.com");
+			Doctor doctor = new Doctor("Marcos", "Corporan", 28, "Mcorporan@hospital.com");
+			entityManager.persist(patient);
+			entityManager.persist(doctor);
+			entityManager.persist(new Room("gynecology"));
+			patientId = patient.getId();
+			doctorId = doctor.getId();
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("delete from appointment");
+		jdbcTemplate.update("delete from patient");
+		jdbcTemplate.update("delete from doctors");
+		jdbcTemplate.update("delete from room");
+		// Deleted behind Hibernate's back, so the second-level cache must go too.
+		entityManagerFactory.getCache().evictAll();
+		appointmentIndex.clear();
+	}
+
+	private Appointment book(String startsAt, String finishesAt) {
+		return transactionTemplate.execute(status -> appointmentRepository.book(new Appointment(
+				entityManager.find(Patient.class, patientId),
+				entityManager.find(Doctor.class, doctorId),
+				entityManager.find(Room.class, "gynecology"),
+				LocalDateTime.parse(startsAt, formatter), LocalDateTime.parse(finishesAt, formatter))));
+	}
+
+	private int count(String table) {
+		return jdbcTemplate.queryForObject("select count(*) from " + table, Integer.class);
+	}
+
+	@Test
+	void shouldClaimOneSlotPerFiveMinutes() {
+		book("19:30 22/10/2023", "20:30 22/10/2023");
+
+		assertThat(count("room_slot")).isEqualTo(12);
+		assertThat(count("doctor_slot")).isEqualTo(12);
+		assertThat(count("patient_slot")).isEqualTo(12);
+	}
+
+	@Test
+	void shouldRejectADoctorBookedInAnotherRoom() {
+		book("19:30 22/10/2023", "20:30 22/10/2023");
+		Doctor doctor = new Doctor();
+		doctor.setId(doctorId);
+
+		assertThatThrownBy(() -> appointmentRepository.book(new Appointment(null, doctor, new Room("oncology"),
+				LocalDateTime.parse("20:00 22/10/2023", formatter), LocalDateTime.parse("21:00 22/10/2023", formatter))))
+				.isInstanceOfSatisfying(SlotConflictException.class,
+						ex -> assertThat(ex.getResource()).isEqualTo(ScheduleResource.DOCTOR));
+
+		assertThat(count("appointment")).isEqualTo(1);
+		assertThat(count("doctor_slot")).isEqualTo(12);
+	}
+
+	@Test
+	void shouldRejectAPatientBookedWithAnotherDoctor() {
+		book("19:30 22/10/2023", "20:30 22/10/2023");
+		Patient patient = new Patient();
+		patient.setId(patientId);
+
+		assertThatThrownBy(() -> appointmentRepository.book(new Appointment(patient,
+				new Doctor("Lucia", "Mena", 39, "lmena@hospital.com"), new Room("oncology"),
+				LocalDateTime.parse("20:25 22/10/2023", formatter), LocalDateTime.parse("21:00 22/10/2023", formatter))))
+				.isInstanceOfSatisfying(SlotConflictException.class,
+						ex -> assertThat(ex.getResource()).isEqualTo(ScheduleResource.PATIENT));
+
+		assertThat(count("appointment")).isEqualTo(1);
+		assertThat(count("patient_slot")).isEqualTo(12);
+		assertThat(count("doctors")).isEqualTo(1);
+	}
+
+	@Test
+	void shouldRejectConflictingBookingWithoutWritingIt() {
+		book("19:30 22/10/2023", "20:30 22/10/2023");
+
+		assertThatThrownBy(() -> book("20:00 22/10/2023", "21:00 22/10/2023"))
+				.isInstanceOf(SlotConflictException.class);
+
+		assertThat(count("appointment")).isEqualTo(1);
+		assertThat(count("room_slot")).isEqualTo(12);
+	}
+
+	@Test
+	void shouldRefuseAppointmentsLongerThanTheMaximum() {
+		assertThatThrownBy(() -> book("19:30 22/10/2023", "19:35 23/10/2023"))
+				.isInstanceOf(InvalidDataAccessApiUsageException.class)
+				.hasCauseInstanceOf(IllegalArgumentException.class);
+
+		assertThat(count("appointment")).isZero();
+		assertThat(count("room_slot")).isZero();
+		book("19:30 22/10/2023", "19:30 23/10/2023");
+	}
+
+	@Test
+	void shouldRoundBookingsOutToWholeSlots() {
+		book("19:30 22/10/2023", "19:32 22/10/2023");
+
+		assertThatThrownBy(() -> book("19:33 22/10/2023", "19:40 22/10/2023"))
+				.isInstanceOf(SlotConflictException.class);
+		book("19:35 22/10/2023", "19:40 22/10/2023");
+	}
+
+	@Test
+	void shouldReleaseSlotsWithTheirAppointment() {
+		Appointment appointment = book("19:30 22/10/2023", "20:30 22/10/2023");
+
+		appointmentRepository.deleteById(appointment.getId());
+
+		assertThat(count("room_slot")).isZero();
+		assertThat(count("patient")).isEqualTo(1);
+		assertThat(count("doctors")).isEqualTo(1);
+		assertThat(count("room")).isEqualTo(1);
+	}
+
+	@Test
+	void shouldBookByReferenceWithASingleInsert() {
+		Patient patient = new Patient();
+		patient.setId(patientId);
+		Doctor doctor = new Doctor();
+		doctor.setId(doctorId);
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		appointmentRepository.bookByReference(new Appointment(patient, doctor, new Room("gynecology"),
+				LocalDateTime.parse("19:30 22/10/2023", formatter), LocalDateTime.parse("20:00 22/10/2023", formatter)));
+
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+		assertThat(statistics.getEntityUpdateCount()).isZero();
+		assertThat(count("room_slot")).isEqualTo(6);
+	}
+
+	@Test
+	void shouldRejectReferencesToMissingRows() {
+		Doctor doctor = new Doctor();
+		doctor.setId(doctorId);
+
+		assertThatThrownBy(() -> appointmentRepository.bookByReference(new Appointment(null, doctor, new Room("oncology"),
+				LocalDateTime.parse("19:30 22/10/2023", formatter), LocalDateTime.parse("20:00 22/10/2023", formatter))))
+				.isInstanceOf(DataIntegrityViolationException.class);
+
+		assertThat(count("appointment")).isZero();
+		assertThat(count("room")).isEqualTo(1);
+	}
+
+	@Test
+	void shouldReuseExistingRoomsDoctorsAndPatients() {
+		Patient patient = new Patient();
+		patient.setId(patientId);
+		Doctor doctor = new Doctor();
+		doctor.setId(doctorId);
+
+		appointmentRepository.book(new Appointment(patient, doctor, new Room("gynecology"),
+				LocalDateTime.parse("19:30 22/10/2023", formatter), LocalDateTime.parse("20:00 22/10/2023", formatter)));
+		appointmentRepository.book(new Appointment(patient, doctor, new Room("gynecology"),
+				LocalDateTime.parse("20:00 22/10/2023", formatter), LocalDateTime.parse("20:30 22/10/2023", formatter)));
+
+		assertThat(count("appointment")).isEqualTo(2);
+		assertThat(count("room")).isEqualTo(1);
+		assertThat(count("doctors")).isEqualTo(1);
+		assertThat(count("patient")).isEqualTo(1);
+	}
+
+	@Test
+	void shouldBookABatchAtomically() {
+		book("19:30 22/10/2023", "20:30 22/10/2023");
+
+		Doctor doctor = new Doctor();
+		doctor.setId(doctorId);
+		List<Appointment> fits = Arrays.asList(
+				new Appointment(null, doctor, new Room("gynecology"),
+						LocalDateTime.parse("20:30 22/10/2023", formatter), LocalDateTime.parse("21:00 22/10/2023", formatter)),
+				new Appointment(null, doctor, new Room("oncology"),
+						LocalDateTime.parse("21:00 22/10/2023", formatter), LocalDateTime.parse("21:30 22/10/2023", formatter)));
+		appointmentRepository.bookAll(fits);
+
+		assertThat(count("appointment")).isEqualTo(3);
+		assertThat(count("room_slot")).isEqualTo(24);
+
+		List<Appointment> clashes = Arrays.asList(
+				new Appointment(null, doctor, new Room("oncology"),
+						LocalDateTime.parse("22:00 22/10/2023", formatter), LocalDateTime.parse("22:30 22/10/2023", formatter)),
+				new Appointment(null, doctor, new Room("gynecology"),
+						LocalDateTime.parse("20:00 22/10/2023", formatter), LocalDateTime.parse("20:15 22/10/2023", formatter)));
+		assertThatThrownBy(() -> appointmentRepository.bookAll(clashes)).isInstanceOf(SlotConflictException.class);
+
+		assertThat(count("appointment")).isEqualTo(3);
+		assertThat(count("room_slot")).isEqualTo(24);
+	}
+
+	@Test
+	void shouldReleaseAllSlotsWithABulkDelete() {
+		book("19:30 22/10/2023", "20:30 22/10/2023");
+		book("21:00 22/10/2023", "21:30 22/10/2023");
+
+		appointmentRepository.deleteAllInBatch();
+
+		assertThat(count("appointment")).isZero();
+		assertThat(count("room_slot")).isZero();
+	}
+
+	@Test
+	void shouldKeepBookedDoctorsOnBulkDelete() {
+		book("19:30 22/10/2023", "20:30 22/10/2023");
+
+		assertThatThrownBy(() -> doctorRepository.deleteInBulkById(doctorId))
+				.isInstanceOf(DataIntegrityViolationException.class);
+		assertThat(doctorRepository.deleteInBulkById(doctorId + 1000)).isZero();
+
+		assertThat(count("doctors")).isEqualTo(1);
+	}
+
+	@Test
+	void shouldFreeANewDoctorOnceTheirAppointmentIsDeleted() {
+		Appointment created = new Appointment(entityManager.find(Patient.class, patientId),
+				new Doctor("Lucia", "Mena", 39, "lmena@hospital.com"), new Room("gynecology"),
+				LocalDateTime.parse("10:00 22/10/2023", formatter), LocalDateTime.parse("10:30 22/10/2023", formatter));
+		assertThat(appointmentController.createAppointment(created).getStatusCode()).isEqualTo(HttpStatus.OK);
+		long newDoctorId = jdbcTemplate.queryForObject("select id from doctors where email = 'lmena@hospital.com'", Long.class);
+		long appointmentId = jdbcTemplate.queryForObject("select id from appointment", Long.class);
+
+		assertThat(appointmentController.deleteAppointment(appointmentId).getStatusCode()).isEqualTo(HttpStatus.OK);
+
+		Doctor doctor = new Doctor();
+		doctor.setId(newDoctorId);
+		Appointment rebooked = new Appointment(null, doctor, new Room("oncology"),
+				LocalDateTime.parse("10:00 22/10/2023", formatter), LocalDateTime.parse("10:30 22/10/2023", formatter));
+		assertThat(appointmentController.createAppointment(rebooked).getStatusCode()).isEqualTo(HttpStatus.OK);
+	}
+
+	@Test
+	void shouldRetryABatchWithNewDoctorsAndPatientsItemByItem() {
+		// This instance has already seen the room, so the booking below slips
+		// past its index and only the room_slot key catches the clash.
+		appointmentIndex.clear();
+		appointmentIndex.isRoomFree("gynecology", LocalDateTime.parse("00:00 22/10/2023", formatter),
+				LocalDateTime.parse("00:05 22/10/2023", formatter));
+		book("19:30 22/10/2023", "20:30 22/10/2023");
+
+		List<Appointment> batch = Arrays.asList(
+				new Appointment(new Patient("Ana", "Ruiz", 41, "aruiz@xmail.com"),
+						new Doctor("Lucia", "Mena", 39, "lmena@hospital.com"), new Room("oncology"),
+						LocalDateTime.parse("10:00 22/10/2023", formatter), LocalDateTime.parse("10:30 22/10/2023", formatter)),
+				new Appointment(new Patient("Pedro", "Gil", 30, "pgil@xmail.com"),
+						new Doctor("Raul", "Soto", 45, "rsoto@hospital.com"), new Room("gynecology"),
+						LocalDateTime.parse("20:00 22/10/2023", formatter), LocalDateTime.parse("20:15 22/10/2023", formatter)));
+
+		ResponseEntity<List<BookingResult>> response = appointmentController.createAppointments(batch);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody()).extracting(BookingResult::getStatus)
+				.containsExactly(HttpStatus.OK, HttpStatus.NOT_ACCEPTABLE);
+		assertThat(count("appointment")).isEqualTo(2);
+		assertThat(count("doctors")).isEqualTo(2);
+		assertThat(count("patient")).isEqualTo(2);
+		assertThat(batch.get(0).getDoctor().getId()).isZero();
+	}
+}
@@ -0,0 +1,98 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.example.demo.scheduling.RoomTimeline;
+import com.example.demo.scheduling.Timeline;
+
+class RoomTimelineUnitTest {
+
+	private final LocalDateTime day = LocalDateTime.of(2023, 10, 22, 0, 0);
+
+	@Test
+	void shouldTellNeighboursSharingACellApart() {
+		RoomTimeline timeline = new RoomTimeline(5);
+		timeline.add(day.plusMinutes(570), day.plusMinutes(572));
+
+		assertThat(timeline.overlaps(day.plusMinutes(572), day.plusMinutes(575))).isFalse();
+		assertThat(timeline.overlaps(day.plusMinutes(571), day.plusMinutes(575))).isTrue();
+	}
+
+	@Test
+	void shouldKeepCellsStillUsedByANeighbourOnRemove() {
+		RoomTimeline timeline = new RoomTimeline(5);
+		timeline.add(day.plusMinutes(570), day.plusMinutes(572));
+		timeline.add(day.plusMinutes(572), day.plusMinutes(580));
+
+		timeline.remove(day.plusMinutes(570), day.plusMinutes(572));
+
+		assertThat(timeline.overlaps(day.plusMinutes(570), day.plusMinutes(572))).isFalse();
+		assertThat(timeline.overlaps(day.plusMinutes(573), day.plusMinutes(574))).isTrue();
+	}
+
+	@Test
+	void shouldSpanMidnightAndDropEmptyDays() {
+		RoomTimeline timeline = new RoomTimeline(5);
+		timeline.add(day.plusMinutes(23 * 60), day.plusMinutes(26 * 60));
+
+		assertThat(timeline.days()).isEqualTo(2);
+		assertThat(timeline.overlaps(day.plusMinutes(25 * 60), day.plusMinutes(27 * 60))).isTrue();
+
+		timeline.remove(day.plusMinutes(23 * 60), day.plusMinutes(26 * 60));
+
+		assertThat(timeline.days()).isZero();
+		assertThat(timeline.overlaps(day, day.plusDays(2))).isFalse();
+	}
+
+	@Test
+	void shouldKeepCellsOfAnOverlappingRowThatStartedTheDayBefore() {
+		RoomTimeline timeline = new RoomTimeline(5);
+		timeline.add(day.plusMinutes(22 * 60), day.plusMinutes(34 * 60));
+		timeline.add(day.plusMinutes(23 * 60), day.plusMinutes(25 * 60));
+
+		timeline.remove(day.plusMinutes(23 * 60), day.plusMinutes(25 * 60));
+
+		assertThat(timeline.overlaps(day.plusMinutes(30 * 60), day.plusMinutes(31 * 60))).isTrue();
+	}
+
+	@Test
+	void shouldRejectCellsThatDoNotDivideADay() {
+		assertThatThrownBy(() -> new RoomTimeline(7)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 5, 15, 60 })
+	void shouldAgreeWithThePlainTimeline(int minutesPerCell) {
+		Random random = new Random(minutesPerCell);
+		RoomTimeline bitmap = new RoomTimeline(minutesPerCell);
+		Timeline exact = new Timeline();
+		List<LocalDateTime[]> booked = new ArrayList<>();
+
+		for (int i = 0; i < 20_000; i++) {
+			LocalDateTime startsAt = day.plusMinutes(random.nextInt(3 * 24 * 60));
+			LocalDateTime finishesAt = startsAt.plusMinutes(1 + random.nextInt(180));
+			boolean overlaps = exact.overlaps(startsAt, finishesAt);
+			assertThat(bitmap.overlaps(startsAt, finishesAt)).isEqualTo(overlaps);
+
+			if (!booked.isEmpty() && random.nextInt(3) == 0) {
+				LocalDateTime[] removed = booked.remove(random.nextInt(booked.size()));
+				exact.remove(removed[0], removed[1]);
+				bitmap.remove(removed[0], removed[1]);
+			} else if (!overlaps) {
+				exact.add(startsAt, finishesAt);
+				bitmap.add(startsAt, finishesAt);
+				booked.add(new LocalDateTime[] { startsAt, finishesAt });
+			}
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.example.demo.entities.Appointment;
+import com.example.demo.entities.Doctor;
+import com.example.demo.entities.Patient;
+import com.example.demo.entities.Room;
+import com.example.demo.scheduling.EpochMinutes;
+import com.example.demo.scheduling.RoomTimeline;
+import com.example.demo.scheduling.TimeWindow;
+import com.example.demo.scheduling.Timeline;
+
+/**
+ * Seeded random checks of the scheduling core against a brute-force oracle
+ * that marks every booked minute of a short horizon in a boolean array. Each
+ * seed is a parameter, so a failure names the seed that reproduces it.
+ */
+class ScheduleCorePropertyTest {
+
+	private static final int HORIZON = 600;
+	private static final long ORIGIN = EpochMinutes.floor(LocalDateTime.of(2023, 10, 22, 8, 0));
+
+	@ParameterizedTest
+	@ValueSource(longs = { 1, 2, 3, 4, 5 })
+	void overlapsMatchesMinuteByMinuteOracle(long seed) {
+		Random random = new Random(seed);
+		for (int i = 0; i < 100_000; i++) {
+			long aStart = random.nextInt(40);
+			long aEnd = aStart + random.nextInt(20);
+			long bStart = random.nextInt(40);
+			long bEnd = bStart + random.nextInt(20);
+
+			boolean shared = false;
+			for (long minute = Math.max(aStart, bStart); minute < Math.min(aEnd, bEnd); minute++) {
+				shared = true;
+			}
+			assertThat(EpochMinutes.overlaps(aStart, aEnd, bStart, bEnd))
+					.as("[%d,%d) vs [%d,%d)", aStart, aEnd, bStart, bEnd).isEqualTo(shared);
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(longs = { 1, 2, 3, 4, 5 })
+	void appointmentOverlapsMatchesOracle(long seed) {
+		Random random = new Random(seed);
+		String[] rooms = { "gynecology", "oncology" };
+		for (int i = 0; i < 20_000; i++) {
+			Appointment a = appointment(rooms[random.nextInt(2)], random.nextInt(60), 1 + random.nextInt(30));
+			Appointment b = appointment(rooms[random.nextInt(2)], random.nextInt(60), 1 + random.nextInt(30));
+
+			boolean expected = a.getRoom().getRoomName().equals(b.getRoom().getRoomName())
+					&& EpochMinutes.overlaps(minutes(a.getStartsAt()), minutes(a.getFinishesAt()),
+							minutes(b.getStartsAt()), minutes(b.getFinishesAt()));
+			assertThat(a.overlaps(b)).isEqualTo(expected);
+			assertThat(b.overlaps(a)).isEqualTo(expected);
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(longs = { 1, 2, 3, 4, 5 })
+	void timelinesMatchOracle(long seed) {
+		checkTimelines(seed, false);
+	}
+
+	// Rows loaded from the database may overlap, even with the same start;
+	// every one of them keeps its minutes booked until it is removed itself.
+	@ParameterizedTest
+	@ValueSource(longs = { 1, 2, 3, 4, 5 })
+	void timelinesWithOverlappingRowsMatchOracle(long seed) {
+		checkTimelines(seed, true);
+	}
+
+	private static void checkTimelines(long seed, boolean overlappingRows) {
+		Random random = new Random(seed);
+		Timeline[] timelines = { new Timeline(), new RoomTimeline(1), new RoomTimeline(5), new RoomTimeline(60) };
+		// Number of intervals covering each minute.
+		int[] booked = new int[HORIZON];
+		List<int[]> intervals = new ArrayList<>();
+
+		for (int step = 0; step < 5_000; step++) {
+			int start = overlappingRows && !intervals.isEmpty() && random.nextInt(4) == 0
+					? intervals.get(random.nextInt(intervals.size()))[0]
+					: random.nextInt(HORIZON - 1);
+			int end = start + 1 + random.nextInt(Math.min(90, HORIZON - start - 1) + 1);
+			boolean expected = anyBooked(booked, start, end);
+			for (Timeline timeline : timelines) {
+				assertThat(timeline.overlaps(ORIGIN + start, ORIGIN + end)).isEqualTo(expected);
+			}
+
+			int action = random.nextInt(4);
+			if (action == 0 && !intervals.isEmpty()) {
+				int[] removed = intervals.remove(random.nextInt(intervals.size()));
+				mark(booked, removed[0], removed[1], -1);
+				for (Timeline timeline : timelines) {
+					timeline.remove(ORIGIN + removed[0], ORIGIN + removed[1]);
+				}
+			} else if (action == 1) {
+				int from = random.nextInt(HORIZON);
+				int to = from + random.nextInt(HORIZON - from + 1);
+				int length = 1 + random.nextInt(60);
+				List<int[]> gaps = oracleGaps(booked, from, to, length);
+				for (Timeline timeline : timelines) {
+					List<TimeWindow> windows = timeline.freeWindows(EpochMinutes.toDateTime(ORIGIN + from),
+							EpochMinutes.toDateTime(ORIGIN + to), Duration.ofMinutes(length), Integer.MAX_VALUE);
+					assertThat(windows).hasSameSizeAs(gaps);
+					for (int i = 0; i < gaps.size(); i++) {
+						assertThat(minutes(windows.get(i).getStartsAt())).isEqualTo(ORIGIN + gaps.get(i)[0]);
+						assertThat(minutes(windows.get(i).getFinishesAt())).isEqualTo(ORIGIN + gaps.get(i)[1]);
+					}
+				}
+			} else if (!expected || overlappingRows) {
+				intervals.add(new int[] { start, end });
+				mark(booked, start, end, 1);
+				for (Timeline timeline : timelines) {
+					timeline.add(ORIGIN + start, ORIGIN + end);
+				}
+			}
+			for (Timeline timeline : timelines) {
+				assertThat(timeline.size()).isEqualTo(intervals.size());
+			}
+		}
+	}
+
+	private static boolean anyBooked(int[] booked, int start, int end) {
+		for (int minute = start; minute < end; minute++) {
+			if (booked[minute] > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void mark(int[] booked, int start, int end, int delta) {
+		for (int minute = start; minute < end; minute++) {
+			booked[minute] += delta;
+		}
+	}
+
+	// Maximal runs of free minutes inside [from, to), at least length long.
+	private static List<int[]> oracleGaps(int[] booked, int from, int to, int length) {
+		List<int[]> gaps = new ArrayList<>();
+		int minute = from;
+		while (minute < to) {
+			if (booked[minute] > 0) {
+				minute++;
+				continue;
+			}
+			int gapStart = minute;
+			while (minute < to && booked[minute] == 0) {
+				minute++;
+			}
+			if (minute - gapStart >= length) {
+				gaps.add(new int[] { gapStart, minute });
+			}
+		}
+		return gaps;
+	}
+
+	private static long minutes(LocalDateTime time) {
+		return EpochMinutes.floor(time);
+	}
+
+	private static Appointment appointment(String roomName, int offset, int length) {
+		LocalDateTime startsAt = EpochMinutes.toDateTime(ORIGIN + offset);
+		return new Appointment(new Patient("Juana", "Sosa", 53, "jsosa@xmail.com"),
+				new Doctor("Marcos", "Corporan", 28, "Mcorporan@hospital.com"), new Room(roomName),
+				startsAt, startsAt.plusMinutes(length));
+	}
+}
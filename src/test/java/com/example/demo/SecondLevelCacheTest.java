@@ -0,0 +1,126 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.entities.Doctor;
+import com.example.demo.entities.Room;
+import com.example.demo.repositories.DoctorRepository;
+import com.example.demo.repositories.RoomRepository;
+
+/**
+ * Counts the JDBC statements Hibernate prepares to show which reads are
+ * answered by the second-level cache. The entity regions hold only three
+ * entries here so that evictions can be provoked.
+ */
+@SpringBootTest(properties = "cache.entity.heap-entries=3")
+@AutoConfigureMockMvc
+class SecondLevelCacheTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private DoctorRepository doctorRepository;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("delete from doctors");
+		jdbcTemplate.update("delete from room");
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@Test
+	void shouldServeRepeatDoctorLookupsFromTheCache() throws Exception {
+		Doctor doctor = doctorRepository.save(new Doctor("Marcos", "Corporan", 28, "Mcorporan@hospital.com"));
+		entityManagerFactory.getCache().evictAll();
+		statistics.clear();
+
+		mockMvc.perform(get("/api/doctors/" + doctor.getId())).andExpect(status().isOk());
+		long afterFirstRead = statistics.getPrepareStatementCount();
+		mockMvc.perform(get("/api/doctors/" + doctor.getId()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.firstName").value("Marcos"));
+
+		assertThat(afterFirstRead).isEqualTo(1);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(afterFirstRead);
+		assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldServeRepeatRoomQueriesFromTheQueryCache() {
+		roomRepository.save(new Room("gynecology"));
+		entityManagerFactory.getCache().evictAll();
+		statistics.clear();
+
+		assertThat(roomRepository.findByRoomName("gynecology")).isPresent();
+		long afterFirstRead = statistics.getPrepareStatementCount();
+		assertThat(roomRepository.findByRoomName("gynecology")).isPresent();
+
+		assertThat(afterFirstRead).isEqualTo(1);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(afterFirstRead);
+		assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldSeeUpdatesMadeThroughHibernate() {
+		Room room = roomRepository.save(new Room("gynecology"));
+		assertThat(roomRepository.findByRoomName("gynecology")).isPresent();
+
+		roomRepository.delete(room);
+
+		assertThat(roomRepository.findByRoomName("gynecology")).isEmpty();
+	}
+
+	@Test
+	void shouldReportHitsMissesAndEvictions() throws Exception {
+		long[] ids = new long[5];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = doctorRepository.save(new Doctor("Marcos", "Corporan", 28, "doctor" + i + "@hospital.com")).getId();
+		}
+		entityManagerFactory.getCache().evictAll();
+		statistics.clear();
+		for (long id : ids) {
+			doctorRepository.findById(id);
+		}
+
+		mockMvc.perform(get("/api/cache/stats"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[?(@.region == 'com.example.demo.entities.Doctor')].misses").value(5))
+				.andExpect(jsonPath("$[?(@.region == 'com.example.demo.entities.Doctor')].puts").value(5))
+				.andExpect(jsonPath("$[?(@.region == 'com.example.demo.entities.Doctor')].evictions").value(hasItem(greaterThan(0))));
+	}
+}
@@ -0,0 +1,68 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * The tests run on H2, where Hibernate uses native sequences, so the MySQL
+ * seed script is run here against hand-made *_seq tables laid out the way
+ * Hibernate creates them on MySQL.
+ */
+class SequenceSeedScriptTest {
+
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+				"jdbc:h2:mem:seed-sequences;MODE=MySQL;DB_CLOSE_DELAY=-1"));
+		for (String table : new String[] { "appointment", "doctors", "patient" }) {
+			jdbcTemplate.execute("drop table if exists " + table);
+			jdbcTemplate.execute("create table " + table + " (id bigint primary key)");
+		}
+		for (String sequence : new String[] { "appointment_seq", "doctor_seq", "patient_seq" }) {
+			jdbcTemplate.execute("drop table if exists " + sequence);
+			jdbcTemplate.execute("create table " + sequence + " (next_val bigint)");
+			jdbcTemplate.update("insert into " + sequence + " values (1)");
+		}
+	}
+
+	private void seed() {
+		new ResourceDatabasePopulator(new ClassPathResource("db/mysql/seed-sequences.sql"))
+				.execute(jdbcTemplate.getDataSource());
+	}
+
+	private long nextVal(String sequence) {
+		return jdbcTemplate.queryForObject("select next_val from " + sequence, Long.class);
+	}
+
+	@Test
+	void shouldRaiseEachSequencePastItsTable() {
+		jdbcTemplate.update("insert into appointment values (7), (120)");
+		jdbcTemplate.update("insert into doctors values (3)");
+
+		seed();
+
+		// Hibernate hands out next_val - 49 up to next_val from here.
+		assertThat(nextVal("appointment_seq")).isEqualTo(170);
+		assertThat(nextVal("doctor_seq")).isEqualTo(53);
+		assertThat(nextVal("patient_seq")).isEqualTo(1);
+	}
+
+	@Test
+	void shouldNeverLowerASequence() {
+		jdbcTemplate.update("insert into appointment values (120)");
+		jdbcTemplate.update("update appointment_seq set next_val = 401");
+
+		seed();
+		seed();
+
+		assertThat(nextVal("appointment_seq")).isEqualTo(401);
+	}
+}
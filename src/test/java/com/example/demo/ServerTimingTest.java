@@ -0,0 +1,103 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.cache.ResponseCache;
+import com.example.demo.metrics.ServerTiming;
+import com.example.demo.scheduling.AppointmentIndex;
+
+@SpringBootTest(properties = "api.server-timing.log=true")
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+class ServerTimingTest {
+
+	private static final String APPOINTMENT = "{\"patient\":{\"firstName\":\"Juana\",\"lastName\":\"Sosa\",\"age\":53,"
+			+ "\"email\":\"jsosa@xmail.com\"},\"doctor\":{\"firstName\":\"Marcos\",\"lastName\":\"Corporan\",\"age\":28,"
+			+ "\"email\":\"Mcorporan@hospital.com\"},\"room\":{\"roomName\":\"timing\"},"
+			+ "\"startsAt\":\"19:30 24/04/2031\",\"finishesAt\":\"20:00 24/04/2031\"}";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private AppointmentIndex appointmentIndex;
+
+	@Autowired
+	private ResponseCache responseCache;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("delete from room_slot");
+		jdbcTemplate.update("delete from appointment");
+		jdbcTemplate.update("delete from patient");
+		jdbcTemplate.update("delete from doctors");
+		jdbcTemplate.update("delete from room");
+		appointmentIndex.clear();
+		responseCache.clear();
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@Test
+	void shouldBreakDownABooking() throws Exception {
+		String timing = mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON).content(APPOINTMENT))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(ServerTiming.HEADER);
+
+		assertThat(timing)
+				.containsPattern("parse;desc=\"JSON request body \\(1\\)\";dur=\\d+\\.\\d{3}")
+				.contains("overlap;desc=\"Booking conflict checks (1)\";dur=")
+				.contains("flush;desc=\"Hibernate flush")
+				.doesNotContain("serialize")
+				.containsPattern("total;dur=\\d+\\.\\d{3}$");
+	}
+
+	@Test
+	void shouldLogTheSerializationOfStreamedBodies(CapturedOutput output) throws Exception {
+		mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON).content(APPOINTMENT))
+				.andExpect(status().isOk());
+
+		// The body goes out as it is serialized, after the header.
+		mockMvc.perform(get("/api/appointments"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(ServerTiming.HEADER, not(containsString("serialize"))));
+
+		assertThat(output.getOut()).containsPattern(
+				"method=GET uri=/api/appointments status=200 .*serialize_ms=\\S+ serialize_count=1 ");
+	}
+
+	@Test
+	void shouldLogOneLinePerRequest(CapturedOutput output) throws Exception {
+		mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON).content(APPOINTMENT))
+				.andExpect(status().isOk());
+
+		assertThat(output.getOut()).containsPattern(
+				"method=POST uri=/api/appointment status=200 parse_ms=\\S+ parse_count=1 overlap_ms=\\S+ overlap_count=1 "
+						+ "flush_ms=\\S+ flush_count=\\d+ serialize_ms=0\\.000 serialize_count=0 total_ms=\\S+");
+	}
+}
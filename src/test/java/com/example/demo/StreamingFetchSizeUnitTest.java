@@ -0,0 +1,29 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+/**
+ * The tests run on H2, which honours a fetch size on its own. Connector/J
+ * reads the whole result set into the heap unless the MySQL URL asks for a
+ * server-side cursor, so the streamed listing depends on the production
+ * configuration checked here.
+ */
+class StreamingFetchSizeUnitTest {
+
+	@Test
+	void shouldStreamFromAServerSideCursorOnMySql() throws Exception {
+		Properties properties = PropertiesLoaderUtils.loadProperties(
+				new FileSystemResource("src/main/resources/application.properties"));
+
+		assertThat(properties.getProperty("spring.datasource.url"))
+				.startsWith("jdbc:mysql:")
+				.containsPattern("[?&]useCursorFetch=true(&|$)");
+		assertThat(Integer.parseInt(properties.getProperty("api.stream.fetch-size"))).isPositive();
+	}
+}
@@ -0,0 +1,38 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import com.example.demo.metrics.TimedJsonHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class TimedJsonHttpMessageConverterUnitTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final TimedJsonHttpMessageConverter converter = new TimedJsonHttpMessageConverter(objectMapper);
+
+	@Test
+	void shouldStreamBodiesWithoutHoldingThemBack() throws Exception {
+		MockHttpOutputMessage message = new MockHttpOutputMessage();
+
+		converter.write(names(1000), MediaType.APPLICATION_JSON, message);
+
+		assertThat(message.getHeaders().getContentLength()).isEqualTo(-1);
+		assertThat(message.getBodyAsString()).isEqualTo(objectMapper.writeValueAsString(names(1000)));
+	}
+
+	private static List<String> names(int count) {
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			names.add("room-" + i);
+		}
+		return names;
+	}
+}